@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ограничение числа одновременно обрабатываемых запросов. С виртуальными потоками Tomcat не ограничивает
+// запросы размером пула потоков, и без этого фильтра тысячи запросов одновременно ждали бы соединения
+// из пула базы. Запрос ждет разрешения в порядке очереди; не дождавшийся за queueTimeoutMs получает 503.
+// Асинхронный запрос (потоковая выгрузка /films/export) держит разрешение до завершения ответа
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ObjectMapper objectMapper;
+    @Value("${filmorate.web.concurrency.enabled:${spring.threads.virtual.enabled:false}}")
+    private final boolean enabled;
+    @Value("${filmorate.web.concurrency.max-concurrent:0}")
+    private final int maxConcurrent;
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private final int poolSize;
+    @Value("${filmorate.web.concurrency.queue-timeout-ms:1000}")
+    private final long queueTimeoutMs;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        int limit = maxConcurrent > 0 ? maxConcurrent : poolSize * 2;
+        permits = new Semaphore(limit, true);
+        if (enabled) {
+            log.info("Ограничение одновременных запросов: {}, ожидание до {} мс", limit, queueTimeoutMs);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // После onTimeout и onError контейнер вызывает и onComplete: разрешение возвращается один раз
+    private final class ReleaseOnComplete implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Запрос {} {} отклонен: превышено число одновременных запросов",
+                request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("Сервер перегружен, повторите запрос позже"));
+    }
+}
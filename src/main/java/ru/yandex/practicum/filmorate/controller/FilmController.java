@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,10 +15,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.impl.FilmValidator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -23,8 +31,11 @@ import java.util.List;
 @RequestMapping("/films")
 @RequiredArgsConstructor
 public class FilmController {
+    private static final int EXPORT_FLUSH_EVERY = 100;
+
     private final FilmService filmService;
     private final FilmValidator filmValidator;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
     public Film get(@PathVariable int id) {
@@ -34,10 +45,38 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        List<Film> films = filmService.findAll();
-        log.info("Получен список фильмов");
-        return films;
+    public ResponseEntity<List<Film>> findAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            List<Film> films = filmService.findAll();
+            log.info("Получен список фильмов");
+            return ResponseEntity.ok(films);
+        }
+        int pageSize = limit != null ? limit : Paging.DEFAULT_PAGE_SIZE;
+        List<Film> films = filmService.findPage(after, pageSize);
+        log.info("Получена страница фильмов после id = \"{}\": {}", after, films.size());
+        return Paging.page(films, pageSize, Film::getId);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportAll() {
+        log.info("Начата выгрузка каталога фильмов");
+        return out -> {
+            int[] count = new int[1];
+            filmService.exportAll(film -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(film));
+                    out.write('\n');
+                    if (++count[0] % EXPORT_FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            log.info("Выгружено фильмов: {}", count[0]);
+        };
     }
 
     @PostMapping
@@ -68,6 +107,13 @@ public class FilmController {
         log.info("У фильма с id = \"{}\" удален лайк пользователя с id = \"{}\"", id, userId);
     }
 
+    @PostMapping("/likes/batch")
+    public List<LikeBatchResult> applyLikes(@RequestBody List<LikeBatchItem> items) {
+        List<LikeBatchResult> results = filmService.applyLikes(items);
+        log.info("Обработан пакет лайков: {}", results.size());
+        return results;
+    }
+
     @GetMapping("/popular")
     public List<Film> getTopFilms(@RequestParam(defaultValue = "10") int count,
                                         @RequestParam(required = false) Integer genreId,
@@ -84,6 +130,13 @@ public class FilmController {
         return topFilms;
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        List<Film> similarFilms = filmService.getSimilarFilms(id, count);
+        log.info("Получен список похожих фильмов для фильма с id = {}: {}", id, similarFilms.size());
+        return similarFilms;
+    }
+
     @GetMapping("/director/{directorId}")
     public List<Film> getFilmsByDirectorId(@PathVariable int directorId,
                                                  @RequestParam(value = "sortBy") String sortBy) {
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.InputStream;
+
+// Тело запроса читается потоком: NDJSON (объект на строку) или CSV с заголовком
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class ImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ImportService importService;
+
+    @PostMapping(value = "/users/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public ImportResult importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                    InputStream body) {
+        ImportResult result = importService.importUsers(body, format(contentType));
+        log.info("Загружены пользователи: записано {}, отклонено {}", result.getImported(), result.getRejected());
+        return result;
+    }
+
+    @PostMapping(value = "/films/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public ImportResult importFilms(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                    InputStream body) {
+        ImportResult result = importService.importFilms(body, format(contentType));
+        log.info("Загружены фильмы: записано {}, отклонено {}", result.getImported(), result.getRejected());
+        return result;
+    }
+
+    private static ImportService.Format format(MediaType contentType) {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? ImportService.Format.NDJSON
+                : ImportService.Format.CSV;
+    }
+}
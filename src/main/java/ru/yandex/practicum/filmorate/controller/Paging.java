@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+final class Paging {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private Paging() {
+    }
+
+    // Полная страница означает, что за ней могут быть еще записи: курсор - ключ последней записи
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, Object> cursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!items.isEmpty() && items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(cursor.apply(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
+
+    // Для опроса новых записей курсор отдается всегда: при пустой странице клиент продолжает с прежнего места
+    static <T> ResponseEntity<List<T>> resume(List<T> items, Object after, Function<T, Object> cursor) {
+        Object next = items.isEmpty() ? after : cursor.apply(items.get(items.size() - 1));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(next));
+        }
+        return response.body(items);
+    }
+}
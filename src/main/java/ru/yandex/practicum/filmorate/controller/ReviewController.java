@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -32,10 +33,12 @@ public class ReviewController {
     }
 
     @GetMapping
-    public List<Review> findAll(@RequestParam(required = false) Integer filmId, @RequestParam(defaultValue = "10") int count) {
-        List<Review> reviews = reviewService.findByFilmId(filmId, count);
+    public ResponseEntity<List<Review>> findAll(@RequestParam(required = false) Integer filmId,
+                                                @RequestParam(defaultValue = "10") int count,
+                                                @RequestParam(required = false) String after) {
+        List<Review> reviews = reviewService.findByFilmId(filmId, count, after);
         log.info("Получен список отзывов на фильм с id = " + filmId + ", не более чем " + count);
-        return reviews;
+        return Paging.page(reviews, count, review -> review.getUseful() + "_" + review.getReviewId());
     }
 
     @PostMapping
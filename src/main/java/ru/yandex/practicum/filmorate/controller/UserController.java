@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,14 +11,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PurgeTask;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDistance;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.service.impl.UserValidator;
 
-import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -36,10 +39,17 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        List<User> users = userService.findAll();
-        log.info("Получен список пользователей");
-        return users;
+    public ResponseEntity<List<User>> findAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            List<User> users = userService.findAll();
+            log.info("Получен список пользователей");
+            return ResponseEntity.ok(users);
+        }
+        int pageSize = limit != null ? limit : Paging.DEFAULT_PAGE_SIZE;
+        List<User> users = userService.findPage(after, pageSize);
+        log.info("Получена страница пользователей после id = \"{}\": {}", after, users.size());
+        return Paging.page(users, pageSize, User::getId);
     }
 
     @PostMapping
@@ -88,11 +98,32 @@ public class UserController {
         return friends;
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        List<User> suggestions = userService.getFriendSuggestions(id, count);
+        log.info("Получен список рекомендуемых друзей для пользователя с id = \"{}\": {}", id, suggestions.size());
+        return suggestions;
+    }
+
+    @GetMapping("/{id}/distance/{otherId}")
+    public UserDistance getDistance(@PathVariable int id, @PathVariable int otherId) {
+        UserDistance distance = userService.getDistance(id, otherId);
+        log.info("Получено расстояние между пользователями с id = \"{}\" и otherId = \"{}\": {}", id, otherId, distance);
+        return distance;
+    }
+
     @GetMapping("/{id}/feed")
-    public List<Feed> getFeed(@PathVariable int id) {
-        List<Feed> feed = userService.getFeed(id);
-        log.info("Получен список последних событий на платформе друзей пользователя с id = \"{}\"", id);
-        return feed;
+    public ResponseEntity<List<Feed>> getFeed(@PathVariable int id,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            List<Feed> feed = userService.getFeed(id);
+            log.info("Получен список последних событий на платформе друзей пользователя с id = \"{}\"", id);
+            return ResponseEntity.ok(feed);
+        }
+        List<Feed> feed = userService.getFeedPage(id, after, limit != null ? limit : Paging.DEFAULT_PAGE_SIZE);
+        log.info("Получены события пользователя с id = \"{}\" после события \"{}\": {}", id, after, feed.size());
+        return Paging.resume(feed, after, Feed::getEventId);
     }
 
     @DeleteMapping("/{userId}")
@@ -101,9 +132,23 @@ public class UserController {
         log.info("Пользователь с id = \"{}\" удален", userId);
     }
 
+    @PostMapping("/purge")
+    public ResponseEntity<PurgeTask> purgeUsers(@RequestBody List<Integer> userIds) {
+        PurgeTask task = userService.purgeUsers(userIds);
+        log.info("Поставлено в очередь удаление пользователей: {}", task);
+        return ResponseEntity.accepted().body(task);
+    }
+
+    @GetMapping("/purge/{taskId}")
+    public PurgeTask getPurgeTask(@PathVariable int taskId) {
+        PurgeTask task = userService.getPurgeTask(taskId);
+        log.info("Получено состояние удаления пользователей: {}", task);
+        return task;
+    }
+
     @GetMapping("/{id}/recommendations")
-    public List<Film> getRecommendedFilms(@PathVariable int id) {
-            List<Film> recommendedFilms = userService.getRecommendedFilms(id);
+    public List<Film> getRecommendedFilms(@PathVariable int id, @RequestParam(required = false) String mode) {
+            List<Film> recommendedFilms = userService.getRecommendedFilms(id, mode);
             log.info("Получен список рекомендации для пользователя с id = \"{}\"", id);
             return recommendedFilms;
     }
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface CascadeRepository {
+    // Возвращает число удаленных лайков по фильмам
+    Map<Integer, Integer> deleteUsers(Collection<Integer> userIds);
+
+    void deleteFilms(Collection<Integer> filmIds);
+}
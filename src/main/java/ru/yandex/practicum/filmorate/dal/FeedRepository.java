@@ -7,7 +7,9 @@ import java.util.List;
 public interface FeedRepository {
     Feed create(Feed feed);
 
+    void createAll(List<Feed> feeds);
+
     List<Feed> findFeedByUserId(Integer userId);
 
-    void deleteUserFeed(int userId);
+    List<Feed> findFeedPage(int userId, int afterEventId, int limit);
 }
@@ -1,24 +1,55 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface FilmRepository {
     Optional<Film> get(Integer id);
 
+    List<Film> getByIds(List<Integer> ids);
+
     List<Film> findAll();
 
+    List<Film> findPage(int afterId, int limit);
+
+    void exportAll(Consumer<Film> consumer);
+
+    void exportLikes(BiConsumer<Integer, Integer> consumer);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film newFilm);
 
-    void addLike(Film film, User user);
+    boolean exists(int id);
+
+    boolean existsAll(Collection<Integer> ids);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    Map<Integer, Set<Integer>> findLikes(Collection<Integer> filmIds, Collection<Integer> userIds);
+
+    Map<Integer, Integer> addLikes(Map<Integer, Set<Integer>> likes);
+
+    Map<Integer, Integer> deleteLikes(Map<Integer, Set<Integer>> likes);
 
-    void deleteLike(Film film, User user);
+    boolean hasLike(int filmId, int userId);
+
+    boolean addLike(int filmId, int userId);
+
+    boolean deleteLike(int filmId, int userId);
+
+    int reconcileLikeCounts();
+
+    Map<Integer, Integer> getLikeCounts();
 
     List<Film> getTopFilms(int maxCount);
 
@@ -30,17 +61,7 @@ public interface FilmRepository {
 
     void deleteFilmDirectors(int filmId);
 
-    void deleteFilmById(int filmId);
-
-    void deleteFilmLikes(int filmId);
-
     void deleteFilmGenres(int filmId);
 
     List<Film> searchFilms(String query, String by);
-
-    List<Film> getCommonFilms(User user, User friend);
-
-    Set<Integer> getFilmsLikedByUser(int userId);
-
-    List<Film> getLikedFilmsByUsersIds(Set<Integer> usersIdsThatLikedSameFilms);
 }
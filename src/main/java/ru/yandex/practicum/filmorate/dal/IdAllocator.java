@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.dal;
+
+public interface IdAllocator {
+    int nextId(Sequence sequence);
+
+    // Первый id непрерывного диапазона из count свободных id
+    int reserve(Sequence sequence, int count);
+
+    enum Sequence { FILMS, USERS, REVIEWS, FEED, DIRECTORS }
+}
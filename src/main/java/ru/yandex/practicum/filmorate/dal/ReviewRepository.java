@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.dal;
 
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,31 +12,25 @@ public interface ReviewRepository {
 
     List<Review> findAll(int count);
 
-    Review create(Review review);
-
-    void update(Review newReview);
-
-    void deleteById(int id);
+    List<Review> findPageByFilmId(int filmId, int afterUseful, int afterReviewId, int count);
 
-    void addLike(Review review, User user);
+    List<Review> findPage(int afterUseful, int afterReviewId, int count);
 
-    void addDislike(Review review, User user);
+    boolean exists(int id);
 
-    void deleteLike(Review review, User user);
-
-    void deleteDislike(Review review, User user);
+    Review create(Review review);
 
-    void deleteFilmReviewLikes(int filmId);
+    void update(Review newReview);
 
-    void deleteFilmReviews(int filmId);
+    void deleteById(int id);
 
-    void deleteUserReviewLikes(int userId);
+    void addLike(int reviewId, int userId);
 
-    void deleteUserReviews(int userId);
+    void addDislike(int reviewId, int userId);
 
-    List<Integer> findUserReviewLikes(int userId);
+    void deleteLike(int reviewId, int userId);
 
-    void deleteReviewLikesByUser(int userId);
+    void deleteDislike(int reviewId, int userId);
 
-    void refreshRatings(List<Integer> ids);
+    int reconcileRatings();
 }
@@ -2,17 +2,31 @@ package ru.yandex.practicum.filmorate.dal;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface UserRepository {
     Optional<User> get(Integer id);
 
+    List<User> getByIds(List<Integer> ids);
+
     List<User> findAll();
 
+    List<User> findPage(int afterId, int limit);
+
+    boolean exists(int id);
+
+    boolean existsAll(Collection<Integer> ids);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User newUser);
 
     void addFriend(User user, User friend);
@@ -23,11 +37,5 @@ public interface UserRepository {
 
     List<User> getMutualFriends(User user, User other);
 
-    void deleteUserById(int userId);
-
-    void deleteUserLikes(int userId);
-
-    void deleteUserFriends(int userId);
-
-    Set<Integer> getUsersWithSameLikes(Set<Integer> filmsIdsLikedByUser);
+    void exportFriends(BiConsumer<Integer, Integer> consumer);
 }
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.dal.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.CascadeRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Каскадное удаление пользователей и фильмов со всеми связанными записями.
+// Все удаления выполняются в одной транзакции по множеству id, каждая таблица - одним запросом
+@Repository
+@RequiredArgsConstructor
+public class JdbcCascadeRepository implements CascadeRepository {
+    private final NamedParameterJdbcOperations jdbc;
+
+    // region SQL queries
+
+    private static final String COUNT_USER_LIKES_QUERY = """
+            SELECT film_id, COUNT(*) likes
+            FROM likes
+            WHERE user_id IN (:ids)
+            GROUP BY film_id""";
+    private static final String DECREMENT_LIKE_COUNTS_QUERY = """
+            UPDATE films f
+            SET like_count = like_count - (
+                SELECT COUNT(*)
+                FROM likes l
+                WHERE l.film_id = f.film_id AND l.user_id IN (:ids))
+            WHERE f.film_id IN (
+                SELECT film_id
+                FROM likes
+                WHERE user_id IN (:ids))""";
+    private static final String DELETE_USER_LIKES_QUERY =
+            "DELETE FROM likes WHERE user_id IN (:ids)";
+    private static final String DELETE_USER_FEED_QUERY =
+            "DELETE FROM feed WHERE user_id IN (:ids)";
+    private static final String DELETE_USER_FRIENDS_QUERY =
+            "DELETE FROM friends WHERE user_id IN (:ids) OR friend_id IN (:ids)";
+    // Рейтинг отзывов, которые остаются, уменьшается на сумму оценок удаляемых пользователей
+    private static final String REVERT_USER_VOTES_QUERY = """
+            UPDATE reviews r
+            SET useful = useful - (
+                SELECT SUM(CASE WHEN rl.is_like THEN 1 ELSE -1 END)
+                FROM review_likes rl
+                WHERE rl.review_id = r.review_id AND rl.user_id IN (:ids))
+            WHERE r.review_id IN (
+                SELECT review_id
+                FROM review_likes
+                WHERE user_id IN (:ids))
+                AND r.user_id NOT IN (:ids)""";
+    private static final String DELETE_USER_REVIEW_LIKES_QUERY = """
+            DELETE FROM review_likes
+            WHERE user_id IN (:ids)
+                OR review_id IN (
+                SELECT review_id
+                FROM reviews
+                WHERE user_id IN (:ids))""";
+    private static final String DELETE_USER_REVIEWS_QUERY =
+            "DELETE FROM reviews WHERE user_id IN (:ids)";
+    private static final String DELETE_USERS_QUERY =
+            "DELETE FROM users WHERE user_id IN (:ids)";
+    private static final String DELETE_FILM_DIRECTORS_QUERY =
+            "DELETE FROM film_directors WHERE film_id IN (:ids)";
+    private static final String DELETE_FILM_GENRES_QUERY =
+            "DELETE FROM film_genres WHERE film_id IN (:ids)";
+    private static final String DELETE_FILM_LIKES_QUERY =
+            "DELETE FROM likes WHERE film_id IN (:ids)";
+    private static final String DELETE_FILM_REVIEW_LIKES_QUERY = """
+            DELETE FROM review_likes
+            WHERE review_id IN (
+                SELECT review_id
+                FROM reviews
+                WHERE film_id IN (:ids))""";
+    private static final String DELETE_FILM_REVIEWS_QUERY =
+            "DELETE FROM reviews WHERE film_id IN (:ids)";
+    private static final String DELETE_FILMS_QUERY =
+            "DELETE FROM films WHERE film_id IN (:ids)";
+
+    // endregion
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> deleteUsers(Collection<Integer> userIds) {
+        Map<Integer, Integer> removedLikes = new HashMap<>();
+        if (userIds.isEmpty()) return removedLikes;
+
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", userIds);
+        jdbc.query(COUNT_USER_LIKES_QUERY, params,
+                (RowCallbackHandler) rs -> removedLikes.put(rs.getInt("film_id"), rs.getInt("likes")));
+        if (!removedLikes.isEmpty()) {
+            jdbc.update(DECREMENT_LIKE_COUNTS_QUERY, params);
+            jdbc.update(DELETE_USER_LIKES_QUERY, params);
+        }
+        jdbc.update(DELETE_USER_FEED_QUERY, params);
+        jdbc.update(DELETE_USER_FRIENDS_QUERY, params);
+        jdbc.update(REVERT_USER_VOTES_QUERY, params);
+        jdbc.update(DELETE_USER_REVIEW_LIKES_QUERY, params);
+        jdbc.update(DELETE_USER_REVIEWS_QUERY, params);
+        jdbc.update(DELETE_USERS_QUERY, params);
+        return removedLikes;
+    }
+
+    @Override
+    @Transactional
+    public void deleteFilms(Collection<Integer> filmIds) {
+        if (filmIds.isEmpty()) return;
+
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", filmIds);
+        jdbc.update(DELETE_FILM_DIRECTORS_QUERY, params);
+        jdbc.update(DELETE_FILM_GENRES_QUERY, params);
+        jdbc.update(DELETE_FILM_LIKES_QUERY, params);
+        jdbc.update(DELETE_FILM_REVIEW_LIKES_QUERY, params);
+        jdbc.update(DELETE_FILM_REVIEWS_QUERY, params);
+        jdbc.update(DELETE_FILMS_QUERY, params);
+    }
+}
@@ -4,10 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.DirectorRepository;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.sql.ResultSet;
@@ -19,6 +19,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class JdbcDirectorRepository implements DirectorRepository {
     private final NamedParameterJdbcOperations jdbc;
+    private final IdAllocator idAllocator;
 
     // region SQL queries
 
@@ -28,7 +29,7 @@ public class JdbcDirectorRepository implements DirectorRepository {
 
     private static final String GET_BY_IDS_QUERY = "SELECT director_id, name FROM directors WHERE director_id IN (:ids)";
 
-    private static final String INSERT_QUERY = "INSERT INTO directors (name) VALUES (:name)";
+    private static final String INSERT_QUERY = "INSERT INTO directors (director_id, name) VALUES (:id, :name)";
 
     private static final String UPDATE_QUERY = "UPDATE directors SET name = :name WHERE director_id = :id";
 
@@ -77,11 +78,10 @@ public class JdbcDirectorRepository implements DirectorRepository {
 
     @Override
     public Director create(Director director) {
-        GeneratedKeyHolder gkh = new GeneratedKeyHolder();
+        director.setId(idAllocator.nextId(IdAllocator.Sequence.DIRECTORS));
         jdbc.update(INSERT_QUERY,
-                new MapSqlParameterSource("name", director.getName()),
-                gkh);
-        director.setId(gkh.getKeyAs(Integer.class));
+                new MapSqlParameterSource("name", director.getName())
+                        .addValue("id", director.getId()));
         return director;
     }
 
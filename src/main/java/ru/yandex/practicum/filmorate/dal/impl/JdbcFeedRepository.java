@@ -3,9 +3,10 @@ package ru.yandex.practicum.filmorate.dal.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.FeedRepository;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
 import ru.yandex.practicum.filmorate.model.Feed;
 
 import java.sql.ResultSet;
@@ -17,20 +18,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class JdbcFeedRepository implements FeedRepository {
     private final NamedParameterJdbcOperations jdbc;
+    private final IdAllocator idAllocator;
 
     // region SQL queries
 
     private static final String INSERT_QUERY = """
-            INSERT INTO feed (user_id, entity_id, timestamp, event_type, operation)
-            VALUES(:user_id, :entity_id, :timestamp, :event_type, :operation)""";
+            INSERT INTO feed (event_id, user_id, entity_id, timestamp, event_type, operation)
+            VALUES(:event_id, :user_id, :entity_id, :timestamp, :event_type, :operation)""";
     private static final String SELECT_BY_USER_ID_QUERY = """
             SELECT timestamp, user_id, event_type, operation, event_id, entity_id
             FROM feed
             WHERE user_id = :user_id
             ORDER BY event_id""";
-    private static final String DELETE_USER_FEED_QUERY = """
-            DELETE FROM feed
-            WHERE user_id = :user_id""";
+    private static final String SELECT_PAGE_BY_USER_ID_QUERY = """
+            SELECT timestamp, user_id, event_type, operation, event_id, entity_id
+            FROM feed
+            WHERE user_id = :user_id AND event_id > :after_id
+            ORDER BY event_id
+            LIMIT :limit""";
     // endregion
 
     // region Mapper
@@ -46,22 +51,40 @@ public class JdbcFeedRepository implements FeedRepository {
                 .build();
     }
 
+    private static MapSqlParameterSource mapToParams(Feed feed) {
+        return new MapSqlParameterSource("event_id", feed.getEventId())
+                .addValue("user_id", feed.getUserId())
+                .addValue("entity_id", feed.getEntityId())
+                .addValue("timestamp", new Timestamp(feed.getTimestamp()))
+                .addValue("event_type", feed.getEventType().name())
+                .addValue("operation", feed.getOperation().name());
+    }
+
     // endregion
 
     @Override
     public Feed create(Feed feed) {
-        GeneratedKeyHolder gkh = new GeneratedKeyHolder();
-        jdbc.update(INSERT_QUERY,
-                new MapSqlParameterSource("user_id", feed.getUserId())
-                        .addValue("entity_id", feed.getEntityId())
-                        .addValue("timestamp", new Timestamp(feed.getTimestamp()))
-                        .addValue("event_type", feed.getEventType().name())
-                        .addValue("operation", feed.getOperation().name()),
-                gkh);
-        feed.setEventId(gkh.getKeyAs(Integer.class));
+        feed.setEventId(idAllocator.nextId(IdAllocator.Sequence.FEED));
+        jdbc.update(INSERT_QUERY, mapToParams(feed));
         return feed;
     }
 
+    @Override
+    @Transactional
+    public void createAll(List<Feed> feeds) {
+        if (feeds.isEmpty()) return;
+
+        // Лента упорядочена по event_id, поэтому id берутся по одному из того же блока, что и в create:
+        // события получают id в порядке записи независимо от способа вставки
+        MapSqlParameterSource[] params = new MapSqlParameterSource[feeds.size()];
+        for (int i = 0; i < params.length; i++) {
+            Feed feed = feeds.get(i);
+            feed.setEventId(idAllocator.nextId(IdAllocator.Sequence.FEED));
+            params[i] = mapToParams(feed);
+        }
+        jdbc.batchUpdate(INSERT_QUERY, params);
+    }
+
     @Override
     public List<Feed> findFeedByUserId(Integer id) {
         return jdbc.query(SELECT_BY_USER_ID_QUERY,
@@ -69,9 +92,16 @@ public class JdbcFeedRepository implements FeedRepository {
                 JdbcFeedRepository::mapRowTo);
     }
 
+    // Курсор по event_id надежен только при одном экземпляре приложения и последовательной записи ленты:
+    // id выдается до фиксации транзакции, и событие с меньшим id, зафиксированное позже соседнего,
+    // пропускается клиентом, уже прочитавшим страницу после него. Несколько экземпляров берут id
+    // из разных блоков, и порядок event_id между ними не совпадает с порядком записи
     @Override
-    public void deleteUserFeed(int userId) {
-        jdbc.update(DELETE_USER_FEED_QUERY,
-                new MapSqlParameterSource("user_id", userId));
+    public List<Feed> findFeedPage(int userId, int afterEventId, int limit) {
+        return jdbc.query(SELECT_PAGE_BY_USER_ID_QUERY,
+                new MapSqlParameterSource("user_id", userId)
+                        .addValue("after_id", afterEventId)
+                        .addValue("limit", limit),
+                JdbcFeedRepository::mapRowTo);
     }
 }
@@ -1,71 +1,152 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
+import ru.yandex.practicum.filmorate.dal.MpaRepository;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Repository("jdbcFilmRepository")
 @RequiredArgsConstructor
 public class JdbcFilmRepository implements FilmRepository {
+    private static final int HYDRATION_BATCH_SIZE = 1000;
+    // Выгрузка читает строки порциями только при LAZY_QUERY_EXECUTION=1 в URL базы H2
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final NamedParameterJdbcOperations jdbc;
+    private final IdAllocator idAllocator;
+    private final GenreRepository genreRepository;
+    private final MpaRepository mpaRepository;
+    @Value("${filmorate.films.hydration:BATCH}")
+    private final Hydration hydration;
+
+    // Способ загрузки жанров и режиссеров для выборки фильмов
+    public enum Hydration {
+        // Один запрос с LEFT JOIN жанров и режиссеров (строк на фильм: жанры x режиссеры)
+        JOIN,
+        // Сначала фильмы, затем жанры и режиссеры пакетными запросами IN (:ids)
+        BATCH
+    }
 
     // region SQL queries
 
     private static final String FIND_ALL_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
             FROM
                 films f
+            ORDER BY
+                f.film_id""";
+    private static final String FIND_PAGE_QUERY = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM
+                films f
+            WHERE
+                f.film_id > :after_id
+            ORDER BY
+                f.film_id
+            LIMIT :limit""";
+    private static final String GET_BY_ID_QUERY = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM
+                films f
+            WHERE
+                f.film_id = :id""";
+    private static final String EXISTS_QUERY =
+            "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = :id)";
+    private static final String COUNT_BY_IDS_QUERY =
+            "SELECT COUNT(*) FROM films WHERE film_id IN (:ids)";
+    private static final String FIND_EXISTING_IDS_QUERY =
+            "SELECT film_id FROM films WHERE film_id IN (:ids)";
+    private static final String GET_BY_IDS_QUERY = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM
+                films f
+            WHERE
+                f.film_id IN (:ids)""";
+    private static final String GET_GENRES_BY_FILM_IDS_QUERY = """
+            SELECT fg.film_id, fg.genre_id
+            FROM
+                film_genres fg
+            WHERE
+                fg.film_id IN (:ids)
+            ORDER BY
+                fg.film_id, fg.genre_id""";
+    private static final String GET_DIRECTORS_BY_FILM_IDS_QUERY = """
+            SELECT fd.film_id, d.director_id, d.name director_name
+            FROM
+                film_directors fd
+            JOIN directors d ON
+                fd.director_id = d.director_id
+            WHERE
+                fd.film_id IN (:ids)
+            ORDER BY
+                fd.film_id, d.director_id""";
+    // Прежний способ загрузки: жанры и режиссеры присоединяются к выборке фильмов одним запросом.
+    // Порядок подзапроса после LEFT JOIN не сохраняется, поэтому внешний запрос повторяет его ключ сортировки
+    private static final String JOIN_HYDRATION_QUERY = """
+            SELECT fb.film_id, fb.name, fb.description, fb.release_date, fb.duration, fb.mpa_id,
+                fg.genre_id, d.director_id, d.name director_name
+            FROM (
+            %s) fb
             LEFT JOIN film_genres fg ON
-                f.film_id = fg.film_id
-            LEFT JOIN GENRES g ON
-                fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON
-                f.mpa_id = m.mpa_id
+                fb.film_id = fg.film_id
             LEFT JOIN film_directors fd ON
-                f.film_id = fd.film_id
+                fb.film_id = fd.film_id
             LEFT JOIN directors d ON
-                fd.director_id = d.director_id""";
-    private static final String GET_BY_ID_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+                fd.director_id = d.director_id
+            ORDER BY
+                %s, fg.genre_id, d.director_id""";
+    private static final String ORDER_BY_ID = "fb.film_id";
+    private static final String ORDER_BY_LIKES = "fb.like_count DESC, fb.film_id";
+    private static final String ORDER_BY_RELEASE_DATE = "fb.release_date, fb.film_id";
+    // Строки одного фильма идут подряд, поэтому фильм собирается по мере чтения курсора
+    private static final String EXPORT_QUERY = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id,
+                fg.genre_id, d.director_id, d.name director_name
             FROM
-            	films f
+                films f
             LEFT JOIN film_genres fg ON
-            	f.film_id = fg.film_id
-            LEFT JOIN genres g ON
-            	fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON
-            	f.mpa_id = m.mpa_id
+                f.film_id = fg.film_id
             LEFT JOIN film_directors fd ON
                 f.film_id = fd.film_id
             LEFT JOIN directors d ON
                 fd.director_id = d.director_id
-            WHERE
-            	f.film_id = :id""";
+            ORDER BY
+                f.film_id""";
     private static final String INSERT_QUERY = """
-            INSERT INTO films (name, description, release_date, duration, mpa_id)
-            VALUES(:name, :desc, :rel_date, :duration, :mpa_id)""";
+            INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+            VALUES(:film_id, :name, :desc, :rel_date, :duration, :mpa_id)""";
     private static final String UPDATE_QUERY = """
             UPDATE films
             SET name = :name, description = :desc, release_date = :rel_date, duration = :duration, mpa_id = :mpa_id
@@ -78,220 +159,112 @@ public class JdbcFilmRepository implements FilmRepository {
             "MERGE INTO film_directors (film_id, director_id) VALUES(:film_id, :director_id)";
     private static final String DELETE_FILM_DIRECTORS_QUERY =
             "DELETE FROM film_directors WHERE film_id = :film_id";
-    private static final String ADD_LIKE_QUERY =
-            "MERGE INTO likes (film_id, user_id) VALUES(:film_id, :user_id)";
+    private static final String ADD_LIKE_QUERY = """
+            INSERT INTO likes (film_id, user_id)
+            SELECT CAST(:film_id AS integer), CAST(:user_id AS integer)
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM likes
+                WHERE film_id = :film_id AND user_id = :user_id)""";
     private static final String DELETE_LIKE_QUERY =
             "DELETE FROM likes WHERE film_id = :film_id AND user_id = :user_id";
+    private static final String HAS_LIKE_QUERY =
+            "SELECT EXISTS (SELECT 1 FROM likes WHERE film_id = :film_id AND user_id = :user_id)";
+    private static final String FIND_LIKES_QUERY = """
+            SELECT film_id, user_id
+            FROM likes
+            WHERE film_id IN (:film_ids) AND user_id IN (:user_ids)""";
+    private static final String CHANGE_LIKE_COUNT_QUERY =
+            "UPDATE films SET like_count = like_count + :delta WHERE film_id = :film_id";
+    private static final String GET_LIKE_COUNTS_QUERY =
+            "SELECT film_id, COUNT(*) likes FROM likes GROUP BY film_id";
+    private static final String RECONCILE_LIKE_COUNTS_QUERY = """
+            UPDATE films f
+            SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)
+            WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)""";
     private static final String GET_TOP_FILMS = """
-            SELECT fr.count, fr.film_id, fr.name, fr.description, fr.release_date, fr.duration, fr.mpa_id, m.name mpa_name,
-            		g.genre_id, g.name genre_name, d.director_id, d.name director_name\s
-            FROM (
-            	SELECT COALESCE(gf.count, 0) count, f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
-            	FROM films f
-            	LEFT JOIN (
-            		SELECT film_id, COUNT(user_id) count
-            		FROM
-            			likes l
-            		GROUP BY
-            			film_id
-            		) gf ON
-            		f.film_id = gf.FILM_ID
-            	ORDER BY count DESC
-            	LIMIT :max_count) fr
-            LEFT JOIN film_genres fg ON
-            	fr.film_id = fg.film_id
-            LEFT JOIN genres g ON
-            	fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON
-            	fr.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON
-                fr.film_id = fd.film_id
-            LEFT JOIN directors d ON
-                fd.director_id = d.director_id""";
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count
+            FROM
+                films f
+            %s
+            ORDER BY
+                f.like_count DESC, f.film_id
+            LIMIT :max_count""";
     private static final String GET_FILMS_BY_DIRECTOR_ID = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
             FROM
-            	films f
-            LEFT JOIN film_genres fg ON
-            	f.film_id = fg.film_id
-            LEFT JOIN genres g ON
-            	fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON
-            	f.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON
+                films f
+            JOIN film_directors fd ON
                 f.film_id = fd.film_id
-            LEFT JOIN directors d ON
-                fd.director_id = d.director_id
             WHERE
-            	d.director_id = :director_id
+                fd.director_id = :director_id
             ORDER BY
-                f.release_date""";
+                f.release_date, f.film_id""";
     private static final String GET_DIRECTOR_FILMS_BY_LIKES = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count
             FROM
-                films AS f
-            LEFT JOIN likes as l ON
-                f.film_id = l.film_id
-            LEFT JOIN mpa AS m ON
-                f.mpa_id = m.mpa_id
-            LEFT JOIN film_genres AS fg ON
-                f.film_id = fg.film_id
-            LEFT JOIN genres AS g ON
-                fg.genre_id = g.genre_id
-            LEFT JOIN film_directors AS fd ON
+                films f
+            JOIN film_directors fd ON
                 f.film_id = fd.film_id
-            LEFT JOIN directors AS d ON
-                fd.director_id = d.director_id
             WHERE
                 fd.director_id = :director_id
-            GROUP BY
-                f.film_id
             ORDER BY
-                COUNT(l.film_id) DESC
-            """;
-    private static final String DELETE_FILM_BY_ID_QUERY = """
-            DELETE FROM films
-            WHERE film_id = :film_id""";
-    private static final String DELETE_FILM_LIKES_QUERY = """
-            DELETE FROM likes
-            WHERE film_id = :film_id""";
+                f.like_count DESC, f.film_id""";
 
     private static final String SEARCH_BY_TITLE_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count
             FROM films f
-            LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-            LEFT JOIN genres g ON fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-            LEFT JOIN directors d ON fd.director_id = d.director_id
             WHERE LOWER(f.name) LIKE LOWER(:query)
-            ORDER BY (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id) DESC
+            ORDER BY f.like_count DESC, f.film_id
             """;
 
     private static final String SEARCH_BY_DIRECTOR_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count
             FROM films f
-            LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-            LEFT JOIN genres g ON fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-            LEFT JOIN directors d ON fd.director_id = d.director_id
-            WHERE LOWER(d.name) LIKE LOWER(:query)
-            ORDER BY (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id) DESC
+            WHERE f.film_id IN (
+                SELECT fd.film_id
+                FROM film_directors fd
+                JOIN directors d ON fd.director_id = d.director_id
+                WHERE LOWER(d.name) LIKE LOWER(:query))
+            ORDER BY f.like_count DESC, f.film_id
             """;
 
     private static final String SEARCH_BY_TITLE_AND_DIRECTOR_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, f.like_count
             FROM films f
-            LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-            LEFT JOIN genres g ON fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-            LEFT JOIN directors d ON fd.director_id = d.director_id
-            WHERE LOWER(f.name) LIKE LOWER(:query) OR LOWER(d.name) LIKE LOWER(:query)
-            ORDER BY (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id) DESC
-            """;
-    private static final String GET_COMMON_FILMS_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name mpa_name,
-                g.genre_id, g.name genre_name, d.director_id, d.name director_name
-            FROM (
-            	SELECT l.film_id
-            	FROM
-            		likes l
-                JOIN likes lk ON
-                    lk.film_id = l.film_id
-                WHERE l.user_id = :user_id AND lk.user_id = :friend_id
-            	GROUP BY
-            		l.film_id
-            	ORDER BY
-            		COUNT(l.user_id) DESC) gf
-            JOIN films f ON
-            	gf.film_id = f.FILM_ID
-            LEFT JOIN film_genres fg ON
-            	f.film_id = fg.film_id
-            LEFT JOIN genres g ON
-            	fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON
-            	f.mpa_id = m.mpa_id
-            LEFT JOIN film_directors fd ON
-                f.film_id = fd.film_id
-            LEFT JOIN directors d ON
-                fd.director_id = d.director_id
-            """;
-
-    private static final String GET_BY_USER_ID_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name,
-                g.genre_id, g.name AS genre_name, d.director_id, d.name
-            FROM
-                films AS f
-            INNER JOIN likes AS l ON
-                f.film_id = l.film_id
-            LEFT JOIN mpa AS m ON
-                f.mpa_id = m.mpa_id
-            LEFT JOIN film_genres AS fg ON
-                f.film_id = fg.film_id
-            LEFT JOIN genres AS g ON
-                fg.genre_id = g.genre_id
-            LEFT JOIN film_directors AS fd ON
-                f.film_id = fd.film_id
-            LEFT JOIN directors AS d ON
-                fd.director_id = d.director_id
-            WHERE
-                l.user_id = :user_id""";
-
-    private static final String GET_BY_USERS_IDS_QUERY = """
-            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name AS mpa_name,
-                g.genre_id, g.name AS genre_name, d.director_id, d.name AS director_name
-            FROM
-                likes AS l
-            INNER JOIN films AS f ON
-                l.film_id = f.film_id
-            LEFT JOIN mpa AS m ON
-                f.mpa_id = m.mpa_id
-            LEFT JOIN film_genres AS fg ON
-                f.film_id = fg.film_id
-            LEFT JOIN genres AS g ON
-                fg.genre_id = g.genre_id
-            LEFT JOIN film_directors AS fd ON
-                f.film_id = fd.film_id
-            LEFT JOIN directors AS d ON
-                fd.director_id = d.director_id
-            WHERE
-                l.user_id IN (:users_ids)
+            WHERE LOWER(f.name) LIKE LOWER(:query) OR f.film_id IN (
+                SELECT fd.film_id
+                FROM film_directors fd
+                JOIN directors d ON fd.director_id = d.director_id
+                WHERE LOWER(d.name) LIKE LOWER(:query))
+            ORDER BY f.like_count DESC, f.film_id
             """;
+    private static final String EXPORT_LIKES_QUERY =
+            "SELECT film_id, user_id FROM likes";
 
     // endregion
 
     // region Mapper
 
-    private static Film mapRowTo(ResultSet rs) throws SQLException {
+    // Рейтинг и жанры берутся из справочников: строки фильмов ссылаются на общие экземпляры
+    private Film mapRowTo(ResultSet rs, int rowNum) throws SQLException {
         Date releaseDate = rs.getDate("release_date");
+        Integer mpaId = rs.getObject("mpa_id", Integer.class);
         return Film.builder()
                 .id(rs.getInt("film_id"))
                 .name(rs.getString("name"))
                 .description(rs.getString("description"))
                 .releaseDate(releaseDate != null ? releaseDate.toLocalDate() : null)
                 .duration(rs.getInt("duration"))
-                .mpa(Mpa.builder()
-                        .id(rs.getInt("mpa_id"))
-                        .name(rs.getString("mpa_name"))
-                        .build())
+                .mpa(mpaId != null ? mpaRepository.get(mpaId).orElse(null) : null)
                 .build();
     }
 
-    private static Genre mapRowToGenre(ResultSet rs) throws SQLException {
+    private Genre mapRowToGenre(ResultSet rs) throws SQLException {
         int genreId = rs.getInt("genre_id");
         if (rs.wasNull()) return null;
 
-        return Genre.builder()
-                .id(genreId)
-                .name(rs.getString("genre_name"))
-                .build();
+        return genreRepository.get(genreId).orElse(null);
     }
 
     private static Director mapRowToDirector(ResultSet rs) throws SQLException {
@@ -304,35 +277,13 @@ public class JdbcFilmRepository implements FilmRepository {
                 .build();
     }
 
-    private static Film mapSetToOne(ResultSet rs) throws SQLException {
-        Film film = null;
-        while (rs.next()) {
-            Integer filmId = rs.getInt("film_id");
-            if (film == null) {
-                film = mapRowTo(rs);
-                film.setGenres(new LinkedHashSet<>());
-                film.setDirectors(new LinkedHashSet<>());
-            }
-            if (!Objects.equals(filmId, film.getId())) break;
-            Genre genre = mapRowToGenre(rs);
-            if (genre != null) {
-                film.getGenres().add(genre);
-            }
-            Director director = mapRowToDirector(rs);
-            if (director != null) {
-                film.getDirectors().add(director);
-            }
-        }
-        return film;
-    }
-
-    private static List<Film> mapSetToList(ResultSet rs) throws SQLException {
+    private List<Film> mapSetToList(ResultSet rs) throws SQLException {
         LinkedHashMap<Integer, Film> films = new LinkedHashMap<>();
         while (rs.next()) {
             Integer filmId = rs.getInt("film_id");
             Film film = films.get(filmId);
             if (film == null) {
-                film = mapRowTo(rs);
+                film = mapRowTo(rs, rs.getRow());
                 films.put(film.getId(), film);
                 film.setGenres(new LinkedHashSet<>());
                 film.setDirectors(new LinkedHashSet<>());
@@ -349,45 +300,152 @@ public class JdbcFilmRepository implements FilmRepository {
         return new ArrayList<>(films.values());
     }
 
-    private static Set<Integer> mapSetToFilmIds(ResultSet rs) throws SQLException {
-        Set<Integer> filmsIds = new HashSet<>();
+    // endregion
 
-        while (rs.next()) {
-            Integer filmId = rs.getInt("film_id");
-            filmsIds.add(filmId);
+    private List<Film> queryFilms(String sql, MapSqlParameterSource params) {
+        return queryFilms(sql, ORDER_BY_ID, params);
+    }
+
+    // order - ключ сортировки sql по столбцам подзапроса fb, нужен только для загрузки JOIN
+    private List<Film> queryFilms(String sql, String order, MapSqlParameterSource params) {
+        if (hydration == Hydration.JOIN) {
+            return jdbc.query(JOIN_HYDRATION_QUERY.formatted(sql, order), params, this::mapSetToList);
         }
-        return filmsIds;
+        List<Film> films = jdbc.query(sql, params, this::mapRowTo);
+        hydrate(films);
+        return films;
     }
 
-    // endregion
+    private void hydrate(List<Film> films) {
+        if (films.isEmpty()) return;
+
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            film.setGenres(new LinkedHashSet<>());
+            film.setDirectors(new LinkedHashSet<>());
+            filmsById.put(film.getId(), film);
+        }
+        List<Integer> ids = new ArrayList<>(filmsById.keySet());
+        for (int from = 0; from < ids.size(); from += HYDRATION_BATCH_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    ids.subList(from, Math.min(from + HYDRATION_BATCH_SIZE, ids.size())));
+            jdbc.query(GET_GENRES_BY_FILM_IDS_QUERY, params, (RowCallbackHandler) rs ->
+                    genreRepository.get(rs.getInt("genre_id"))
+                            .ifPresent(filmsById.get(rs.getInt("film_id")).getGenres()::add));
+            jdbc.query(GET_DIRECTORS_BY_FILM_IDS_QUERY, params, (RowCallbackHandler) rs ->
+                    filmsById.get(rs.getInt("film_id")).getDirectors().add(mapRowToDirector(rs)));
+        }
+    }
 
     @Override
     public Optional<Film> get(Integer id) {
         if (id == null) return Optional.empty();
 
-        return Optional.ofNullable(jdbc.query(GET_BY_ID_QUERY,
+        return queryFilms(GET_BY_ID_QUERY, new MapSqlParameterSource("id", id)).stream()
+                .findFirst();
+    }
+
+    @Override
+    public boolean exists(int id) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(EXISTS_QUERY,
                 new MapSqlParameterSource("id", id),
-                JdbcFilmRepository::mapSetToOne));
+                Boolean.class));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinct = new HashSet<>(ids);
+        if (distinct.isEmpty()) return true;
+        if (distinct.contains(null)) return false;
+
+        Integer found = jdbc.queryForObject(COUNT_BY_IDS_QUERY,
+                new MapSqlParameterSource("ids", distinct),
+                Integer.class);
+        return found != null && found == distinct.size();
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) return Set.of();
+
+        return new HashSet<>(jdbc.queryForList(FIND_EXISTING_IDS_QUERY,
+                new MapSqlParameterSource("ids", ids),
+                Integer.class));
+    }
+
+    @Override
+    public List<Film> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        Map<Integer, Film> films = new HashMap<>();
+        queryFilms(GET_BY_IDS_QUERY, new MapSqlParameterSource("ids", ids))
+                .forEach(film -> films.put(film.getId(), film));
+        // Сохраняем порядок переданных id
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
     public List<Film> findAll() {
-        return jdbc.query(FIND_ALL_QUERY,
-                JdbcFilmRepository::mapSetToList);
+        return queryFilms(FIND_ALL_QUERY, new MapSqlParameterSource());
+    }
+
+    @Override
+    public List<Film> findPage(int afterId, int limit) {
+        return queryFilms(FIND_PAGE_QUERY,
+                new MapSqlParameterSource("after_id", afterId)
+                        .addValue("limit", limit));
+    }
+
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        Film[] current = new Film[1];
+        jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(EXPORT_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            Film film = current[0];
+            if (film == null || film.getId() != rs.getInt("film_id")) {
+                if (film != null) {
+                    consumer.accept(film);
+                }
+                film = mapRowTo(rs, rs.getRow());
+                film.setGenres(new LinkedHashSet<>());
+                film.setDirectors(new LinkedHashSet<>());
+                current[0] = film;
+            }
+            Genre genre = mapRowToGenre(rs);
+            if (genre != null) {
+                film.getGenres().add(genre);
+            }
+            Director director = mapRowToDirector(rs);
+            if (director != null) {
+                film.getDirectors().add(director);
+            }
+        });
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    @Override
+    public void exportLikes(BiConsumer<Integer, Integer> consumer) {
+        jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(EXPORT_LIKES_QUERY,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getInt("film_id"), rs.getInt("user_id")));
     }
 
     @Override
     public Film create(Film film) {
-        GeneratedKeyHolder gkh = new GeneratedKeyHolder();
-        Mpa mpa = film.getMpa();
-        jdbc.update(INSERT_QUERY,
-                new MapSqlParameterSource("name", film.getName())
-                        .addValue("desc", film.getDescription())
-                        .addValue("rel_date", film.getReleaseDate())
-                        .addValue("duration", film.getDuration())
-                        .addValue("mpa_id", mpa != null ? mpa.getId() : null),
-                gkh);
-        film.setId(gkh.getKeyAs(Integer.class));
+        film.setId(idAllocator.nextId(IdAllocator.Sequence.FILMS));
+        jdbc.update(INSERT_QUERY, mapFilmToParams(film));
         // Создать связи фильм - жанры
         insertFilmGenres(film.getId(), film.getGenres());
         // Создать связи фильм - режиссер
@@ -395,6 +453,49 @@ public class JdbcFilmRepository implements FilmRepository {
         return film;
     }
 
+    // Фильмы получают один диапазон id, фильмы и их связи пишутся тремя пакетными запросами
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) return films;
+
+        int firstId = idAllocator.reserve(IdAllocator.Sequence.FILMS, films.size());
+        MapSqlParameterSource[] filmArgs = new MapSqlParameterSource[films.size()];
+        List<MapSqlParameterSource> genreArgs = new ArrayList<>();
+        List<MapSqlParameterSource> directorArgs = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(firstId + i);
+            filmArgs[i] = mapFilmToParams(film);
+            if (film.getGenres() != null) {
+                film.getGenres().forEach(g -> genreArgs.add(new MapSqlParameterSource("film_id", film.getId())
+                        .addValue("genre_id", g.getId())));
+            }
+            if (film.getDirectors() != null) {
+                film.getDirectors().forEach(d -> directorArgs.add(new MapSqlParameterSource("film_id", film.getId())
+                        .addValue("director_id", d.getId())));
+            }
+        }
+        jdbc.batchUpdate(INSERT_QUERY, filmArgs);
+        if (!genreArgs.isEmpty()) {
+            jdbc.batchUpdate(INSERT_FILM_GENRES_QUERY, genreArgs.toArray(MapSqlParameterSource[]::new));
+        }
+        if (!directorArgs.isEmpty()) {
+            jdbc.batchUpdate(INSERT_FILM_DIRECTOR_QUERY, directorArgs.toArray(MapSqlParameterSource[]::new));
+        }
+        return films;
+    }
+
+    private static MapSqlParameterSource mapFilmToParams(Film film) {
+        Mpa mpa = film.getMpa();
+        return new MapSqlParameterSource("film_id", film.getId())
+                .addValue("name", film.getName())
+                .addValue("desc", film.getDescription())
+                .addValue("rel_date", film.getReleaseDate())
+                .addValue("duration", film.getDuration())
+                .addValue("mpa_id", mpa != null ? mpa.getId() : null);
+    }
+
     private void insertFilmGenres(int filmId, Set<Genre> genres) {
         if (genres == null || genres.isEmpty()) return;
 
@@ -447,24 +548,130 @@ public class JdbcFilmRepository implements FilmRepository {
     }
 
     @Override
-    public void addLike(Film film, User user) {
-        jdbc.update(ADD_LIKE_QUERY,
-                new MapSqlParameterSource("film_id", film.getId())
-                        .addValue("user_id", user.getId()));
+    public boolean hasLike(int filmId, int userId) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(HAS_LIKE_QUERY,
+                new MapSqlParameterSource("film_id", filmId)
+                        .addValue("user_id", userId),
+                Boolean.class));
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        int added = insertLike(new MapSqlParameterSource("film_id", filmId)
+                .addValue("user_id", userId));
+        if (added == 0) return false;
+
+        changeLikeCount(filmId, 1);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteLike(int filmId, int userId) {
+        int deleted = jdbc.update(DELETE_LIKE_QUERY,
+                new MapSqlParameterSource("film_id", filmId)
+                        .addValue("user_id", userId));
+        if (deleted == 0) return false;
+
+        changeLikeCount(filmId, -1);
+        return true;
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> findLikes(Collection<Integer> filmIds, Collection<Integer> userIds) {
+        Map<Integer, Set<Integer>> likes = new HashMap<>();
+        if (filmIds.isEmpty() || userIds.isEmpty()) return likes;
+
+        jdbc.query(FIND_LIKES_QUERY,
+                new MapSqlParameterSource("film_ids", filmIds)
+                        .addValue("user_ids", userIds),
+                (RowCallbackHandler) rs -> likes.computeIfAbsent(rs.getInt("film_id"), id -> new HashSet<>())
+                        .add(rs.getInt("user_id")));
+        return likes;
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> addLikes(Map<Integer, Set<Integer>> likes) {
+        return changeLikes(ADD_LIKE_QUERY, likes, 1);
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, Integer> deleteLikes(Map<Integer, Set<Integer>> likes) {
+        return changeLikes(DELETE_LIKE_QUERY, likes, -1);
+    }
+
+    // Возвращает фактическое изменение счетчика по фильмам: уже существующие лайки не учитываются
+    private Map<Integer, Integer> changeLikes(String query, Map<Integer, Set<Integer>> likes, int delta) {
+        List<MapSqlParameterSource> batch = new ArrayList<>();
+        likes.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                batch.add(new MapSqlParameterSource("film_id", filmId)
+                        .addValue("user_id", userId))));
+        if (batch.isEmpty()) return Map.of();
+
+        MapSqlParameterSource[] params = batch.toArray(MapSqlParameterSource[]::new);
+        int[] updated;
+        TransactionStatus transaction = TransactionAspectSupport.currentTransactionStatus();
+        Object savepoint = transaction.createSavepoint();
+        try {
+            updated = jdbc.batchUpdate(query, params);
+            transaction.releaseSavepoint(savepoint);
+        } catch (DuplicateKeyException e) {
+            // Одновременный одиночный лайк той же пары: часть пачки могла записаться, поэтому пачка
+            // откатывается до точки сохранения и повторяется по одной строке
+            transaction.rollbackToSavepoint(savepoint);
+            updated = new int[params.length];
+            for (int i = 0; i < params.length; i++) {
+                updated[i] = insertLike(params[i]);
+            }
+        }
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                deltas.merge((Integer) batch.get(i).getValue("film_id"), delta, Integer::sum);
+            }
+        }
+        jdbc.batchUpdate(CHANGE_LIKE_COUNT_QUERY, deltas.entrySet().stream()
+                .map(e -> new MapSqlParameterSource("film_id", e.getKey())
+                        .addValue("delta", e.getValue()))
+                .toArray(MapSqlParameterSource[]::new));
+        return deltas;
+    }
+
+    private int insertLike(MapSqlParameterSource params) {
+        try {
+            return jdbc.update(ADD_LIKE_QUERY, params);
+        } catch (DuplicateKeyException e) {
+            // Одновременный запрос успел вставить тот же лайк после проверки NOT EXISTS
+            return 0;
+        }
+    }
+
+    private void changeLikeCount(int filmId, int delta) {
+        jdbc.update(CHANGE_LIKE_COUNT_QUERY,
+                new MapSqlParameterSource("film_id", filmId)
+                        .addValue("delta", delta));
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbc.query(GET_LIKE_COUNTS_QUERY, (RowCallbackHandler) rs ->
+                counts.put(rs.getInt("film_id"), rs.getInt("likes")));
+        return counts;
     }
 
     @Override
-    public void deleteLike(Film film, User user) {
-        jdbc.update(DELETE_LIKE_QUERY,
-                new MapSqlParameterSource("film_id", film.getId())
-                        .addValue("user_id", user.getId()));
+    public int reconcileLikeCounts() {
+        return jdbc.update(RECONCILE_LIKE_COUNTS_QUERY, new MapSqlParameterSource());
     }
 
     @Override
     public List<Film> getTopFilms(int maxCount) {
-        return jdbc.query(GET_TOP_FILMS,
-                new MapSqlParameterSource("max_count", maxCount),
-                JdbcFilmRepository::mapSetToList);
+        return queryFilms(GET_TOP_FILMS.formatted(""), ORDER_BY_LIKES,
+                new MapSqlParameterSource("max_count", maxCount));
     }
 
     @Override
@@ -472,49 +679,33 @@ public class JdbcFilmRepository implements FilmRepository {
         //WHERE g.genre_id = 1 AND YEAR(f.release_date) = 2003
         ArrayList<String> predicates = new ArrayList<>();
         if (genreId != null) {
-            predicates.add("fr.film_id IN (SELECT film_id FROM film_genres WHERE genre_id = :genreId)");
+            predicates.add("f.film_id IN (SELECT film_id FROM film_genres WHERE genre_id = :genreId)");
         }
         if (year != null) {
-            predicates.add("YEAR(fr.release_date) = :year");
+            predicates.add("YEAR(f.release_date) = :year");
         }
 
-        String predicate = "\nWHERE " + String.join(" AND ", predicates);
-        return jdbc.query(GET_TOP_FILMS
-                        + predicate,
+        String predicate = predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates);
+        return queryFilms(GET_TOP_FILMS.formatted(predicate), ORDER_BY_LIKES,
                 new MapSqlParameterSource("max_count", count)
                         .addValue("genreId", genreId)
-                        .addValue("year", year),
-                JdbcFilmRepository::mapSetToList);
+                        .addValue("year", year));
     }
 
     @Override
     public List<Film> getFilmsByDirector(Integer directorId) {
         if (directorId == null) return null;
 
-        return jdbc.query(GET_FILMS_BY_DIRECTOR_ID,
-                new MapSqlParameterSource("director_id", directorId),
-                JdbcFilmRepository::mapSetToList);
+        return queryFilms(GET_FILMS_BY_DIRECTOR_ID, ORDER_BY_RELEASE_DATE,
+                new MapSqlParameterSource("director_id", directorId));
     }
 
     @Override
     public List<Film> getDirectorFilmsByLikes(Integer directorId) {
         if (directorId == null) return null;
 
-        return jdbc.query(GET_DIRECTOR_FILMS_BY_LIKES,
-                new MapSqlParameterSource("director_id", directorId),
-                JdbcFilmRepository::mapSetToList);
-    }
-
-    @Override
-    public void deleteFilmById(int filmId) {
-        jdbc.update(DELETE_FILM_BY_ID_QUERY,
-                new MapSqlParameterSource("film_id", filmId));
-    }
-
-    @Override
-    public void deleteFilmLikes(int filmId) {
-        jdbc.update(DELETE_FILM_LIKES_QUERY,
-                new MapSqlParameterSource("film_id", filmId));
+        return queryFilms(GET_DIRECTOR_FILMS_BY_LIKES, ORDER_BY_LIKES,
+                new MapSqlParameterSource("director_id", directorId));
     }
 
     @Override
@@ -530,32 +721,6 @@ public class JdbcFilmRepository implements FilmRepository {
             throw new IllegalArgumentException("Invalid search parameter: " + by);
         }
 
-        return jdbc.query(sql, new MapSqlParameterSource("query", "%" + query + "%"), JdbcFilmRepository::mapSetToList);
-    }
-
-    @Override
-    public List<Film> getCommonFilms(User user, User friend) {
-        return jdbc.query(GET_COMMON_FILMS_QUERY,
-                new MapSqlParameterSource("user_id", user.getId())
-                        .addValue("friend_id", friend.getId()),
-                JdbcFilmRepository::mapSetToList);
-    }
-
-    @Override
-    public Set<Integer> getFilmsLikedByUser(int userId) {
-
-        return jdbc.query(GET_BY_USER_ID_QUERY,
-                new MapSqlParameterSource("user_id", userId),
-                JdbcFilmRepository::mapSetToFilmIds);
-    }
-
-    @Override
-    public List<Film> getLikedFilmsByUsersIds(Set<Integer> usersIds) {
-
-        return jdbc.query(GET_BY_USERS_IDS_QUERY,
-                new MapSqlParameterSource()
-                        .addValue("users_ids", usersIds),
-                JdbcFilmRepository::mapSetToList);
-
+        return queryFilms(sql, ORDER_BY_LIKES, new MapSqlParameterSource("query", "%" + query + "%"));
     }
 }
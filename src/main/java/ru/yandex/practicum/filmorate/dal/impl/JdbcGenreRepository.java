@@ -1,8 +1,8 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dal.GenreRepository;
@@ -11,18 +11,22 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class JdbcGenreRepository implements GenreRepository {
     private final NamedParameterJdbcOperations jdbc;
 
+    // Справочник меняется только через data.sql, поэтому читается один раз при старте
+    private volatile Genre[] byId = new Genre[0];
+    private volatile List<Genre> all = List.of();
+
     // region SQL queries
 
-    private static final String GET_BY_ID_QUERY = "SELECT genre_id, name FROM genres g WHERE g.genre_id = :id";
-    private static final String FIND_ALL_QUERY = "SELECT genre_id, name FROM genres";
-    private static final String GET_BY_IDS_QUERY = "SELECT genre_id, name FROM genres g WHERE g.genre_id IN (:ids)";
+    private static final String FIND_ALL_QUERY = "SELECT genre_id, name FROM genres ORDER BY genre_id";
 
     // endregion
 
@@ -37,28 +41,38 @@ public class JdbcGenreRepository implements GenreRepository {
 
     // endregion
 
+    @PostConstruct
+    public void load() {
+        List<Genre> genres = List.copyOf(jdbc.query(FIND_ALL_QUERY, JdbcGenreRepository::mapRowTo));
+        Genre[] index = new Genre[genres.isEmpty() ? 0 : genres.getLast().getId() + 1];
+        genres.forEach(genre -> index[genre.getId()] = genre);
+
+        byId = index;
+        all = genres;
+        log.info("Справочник жанров загружен: {}", genres.size());
+    }
+
     @Override
     public Optional<Genre> get(Integer id) {
-        try {
-            if (id == null) return Optional.empty();
-
-            return Optional.ofNullable(jdbc.queryForObject(GET_BY_ID_QUERY,
-                    new MapSqlParameterSource("id", id),
-                    JdbcGenreRepository::mapRowTo));
-        } catch (EmptyResultDataAccessException ignored) {
-            return Optional.empty();
-        }
+        Genre[] index = byId;
+        if (id == null || id < 0 || id >= index.length) return Optional.empty();
+
+        return Optional.ofNullable(index[id]);
     }
 
     @Override
     public List<Genre> findAll() {
-        return jdbc.query(FIND_ALL_QUERY, JdbcGenreRepository::mapRowTo);
+        return all;
     }
 
     @Override
     public List<Genre> getByIds(List<Integer> ids) {
-        return jdbc.query(GET_BY_IDS_QUERY,
-                new MapSqlParameterSource("ids", ids),
-                JdbcGenreRepository::mapRowTo);
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .map(this::get)
+                .flatMap(Optional::stream)
+                .toList();
     }
 }
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.dal.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Выдача id блоками: граница выданных id хранится в таблице id_blocks, блок резервируется
+// отдельной транзакцией, id внутри блока выдаются из памяти без обращения к базе.
+// Начало блока не меньше MAX(id) + 1, поэтому id не повторяются после перезапуска,
+// даже если строки добавлялись в обход распределителя. Следующий блок резервируется в фоне заранее,
+// чтобы поток вызывающего не ждал второе соединение из пула, удерживая свое
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class JdbcIdAllocator implements IdAllocator {
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
+    @Value("${filmorate.ids.block-size:100}")
+    private final int blockSize;
+
+    private final Map<Sequence, Block> blocks = new EnumMap<>(Sequence.class);
+    private TransactionTemplate reservation;
+    private ExecutorService prefetcher;
+
+    // region SQL queries
+
+    private static final String MAX_FILM_ID_QUERY = "SELECT COALESCE(MAX(film_id), 0) FROM films";
+    private static final String MAX_USER_ID_QUERY = "SELECT COALESCE(MAX(user_id), 0) FROM users";
+    private static final String MAX_REVIEW_ID_QUERY = "SELECT COALESCE(MAX(review_id), 0) FROM reviews";
+    private static final String MAX_EVENT_ID_QUERY = "SELECT COALESCE(MAX(event_id), 0) FROM feed";
+    private static final String MAX_DIRECTOR_ID_QUERY = "SELECT COALESCE(MAX(director_id), 0) FROM directors";
+    private static final String LOCK_NEXT_ID_QUERY =
+            "SELECT next_id FROM id_blocks WHERE name = :name FOR UPDATE";
+    private static final String SAVE_NEXT_ID_QUERY =
+            "MERGE INTO id_blocks (name, next_id) KEY (name) VALUES(:name, :next_id)";
+
+    // endregion
+
+    private static final class Block {
+        private int next;
+        private int limit;
+        // Начало следующего блока, резервируемого в фоне
+        private CompletableFuture<Integer> spare;
+    }
+
+    @PostConstruct
+    public void init() {
+        reservation = new TransactionTemplate(transactionManager);
+        reservation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        prefetcher = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("id-prefetch").daemon().factory());
+        for (Sequence sequence : Sequence.values()) {
+            blocks.put(sequence, new Block());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        prefetcher.shutdownNow();
+    }
+
+    // Монитор блока держится только на время работы с памятью: ожидание соединения под ним
+    // остановило бы все потоки последовательности, а при исчерпанном пуле - навсегда
+    @Override
+    public int nextId(Sequence sequence) {
+        Block block = blocks.get(sequence);
+        while (true) {
+            synchronized (block) {
+                if (block.next == block.limit) {
+                    takeSpare(sequence, block);
+                }
+                if (block.next < block.limit) {
+                    int id = block.next++;
+                    if (block.spare == null && block.limit - block.next <= blockSize / 2) {
+                        block.spare = CompletableFuture.supplyAsync(() -> reservation.execute(status ->
+                                reserveFrom(sequence, readFloor(sequence), blockSize)), prefetcher);
+                    }
+                    return id;
+                }
+            }
+            // Фоновое резервирование еще не завершилось: блок резервируется в потоке вызывающего
+            int first = reserve(sequence, blockSize);
+            synchronized (block) {
+                // Если блок уже пополнил другой поток, зарезервированные id остаются пропуском
+                if (block.next == block.limit) {
+                    block.next = first;
+                    block.limit = first + blockSize;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int reserve(Sequence sequence, int count) {
+        // MAX читается в транзакции вызывающего, чтобы учесть еще не зафиксированные им строки
+        int floor = readFloor(sequence);
+        return reservation.execute(status -> reserveFrom(sequence, floor, count));
+    }
+
+    private void takeSpare(Sequence sequence, Block block) {
+        CompletableFuture<Integer> spare = block.spare;
+        if (spare == null || !spare.isDone()) return;
+
+        block.spare = null;
+        try {
+            block.next = spare.join();
+            block.limit = block.next + blockSize;
+        } catch (CompletionException | CancellationException e) {
+            log.warn("Не удалось заранее зарезервировать id {}", sequence, e);
+        }
+    }
+
+    private int readFloor(Sequence sequence) {
+        return jdbc.queryForObject(maxIdQuery(sequence), new MapSqlParameterSource(), Integer.class) + 1;
+    }
+
+    // Строка id_blocks блокируется до конца отдельной транзакции, поэтому диапазоны не пересекаются
+    private int reserveFrom(Sequence sequence, int floor, int count) {
+        MapSqlParameterSource params = new MapSqlParameterSource("name", sequence.name());
+        List<Integer> stored = jdbc.queryForList(LOCK_NEXT_ID_QUERY, params, Integer.class);
+        int first = stored.isEmpty() ? floor : Math.max(stored.getFirst(), floor);
+        jdbc.update(SAVE_NEXT_ID_QUERY, params.addValue("next_id", first + count));
+        log.debug("Зарезервированы id {}: {}..{}", sequence, first, first + count - 1);
+        return first;
+    }
+
+    private static String maxIdQuery(Sequence sequence) {
+        return switch (sequence) {
+            case FILMS -> MAX_FILM_ID_QUERY;
+            case USERS -> MAX_USER_ID_QUERY;
+            case REVIEWS -> MAX_REVIEW_ID_QUERY;
+            case FEED -> MAX_EVENT_ID_QUERY;
+            case DIRECTORS -> MAX_DIRECTOR_ID_QUERY;
+        };
+    }
+}
@@ -1,8 +1,8 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.dal.MpaRepository;
@@ -13,15 +13,19 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class JdbcMpaRepository implements MpaRepository {
     private final NamedParameterJdbcOperations jdbc;
 
+    // Справочник меняется только через data.sql, поэтому читается один раз при старте
+    private volatile Mpa[] byId = new Mpa[0];
+    private volatile List<Mpa> all = List.of();
+
     // region SQL queries
 
-    private static final String GET_BY_ID_QUERY = "SELECT mpa_id, name FROM mpa m WHERE m.mpa_id = :id";
-    private static final String FIND_ALL_QUERY = "SELECT mpa_id, name FROM mpa";
+    private static final String FIND_ALL_QUERY = "SELECT mpa_id, name FROM mpa ORDER BY mpa_id";
 
     // endregion
 
@@ -36,21 +40,27 @@ public class JdbcMpaRepository implements MpaRepository {
 
     // endregion
 
+    @PostConstruct
+    public void load() {
+        List<Mpa> ratings = List.copyOf(jdbc.query(FIND_ALL_QUERY, JdbcMpaRepository::mapRowTo));
+        Mpa[] index = new Mpa[ratings.isEmpty() ? 0 : ratings.getLast().getId() + 1];
+        ratings.forEach(mpa -> index[mpa.getId()] = mpa);
+
+        byId = index;
+        all = ratings;
+        log.info("Справочник рейтингов загружен: {}", ratings.size());
+    }
+
     @Override
     public Optional<Mpa> get(Integer id) {
-        try {
-            if (id == null) return Optional.empty();
-
-            return Optional.ofNullable(jdbc.queryForObject(GET_BY_ID_QUERY,
-                    new MapSqlParameterSource("id", id),
-                    JdbcMpaRepository::mapRowTo));
-        } catch (EmptyResultDataAccessException ignored) {
-            return Optional.empty();
-        }
+        Mpa[] index = byId;
+        if (id == null || id < 0 || id >= index.length) return Optional.empty();
+
+        return Optional.ofNullable(index[id]);
     }
 
     @Override
     public List<Mpa> findAll() {
-        return jdbc.query(FIND_ALL_QUERY, JdbcMpaRepository::mapRowTo);
+        return all;
     }
 }
@@ -1,24 +1,27 @@
 package ru.yandex.practicum.filmorate.dal.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
 import ru.yandex.practicum.filmorate.dal.ReviewRepository;
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
 public class JdbcReviewRepository implements ReviewRepository {
     private final NamedParameterJdbcOperations jdbc;
+    private final IdAllocator idAllocator;
 
     // region SQL queries
 
@@ -26,56 +29,71 @@ public class JdbcReviewRepository implements ReviewRepository {
             SELECT review_id, content, is_positive, film_id, user_id, useful
             FROM reviews
             WHERE review_id = :id""";
+    private static final String FIND_BY_FILM_QUERY = """
+            SELECT review_id, content, is_positive, film_id, user_id, useful
+            FROM reviews
+            WHERE film_id = :film_id
+            ORDER BY useful DESC, review_id
+            LIMIT :count""";
     private static final String FIND_ALL_QUERY = """
             SELECT review_id, content, is_positive, film_id, user_id, useful
-            FROM reviews""";
+            FROM reviews
+            ORDER BY useful DESC, review_id
+            LIMIT :count""";
+    // Продолжение после отзыва (after_useful, after_review_id) в порядке useful DESC, review_id
+    private static final String FIND_PAGE_BY_FILM_QUERY = """
+            SELECT review_id, content, is_positive, film_id, user_id, useful
+            FROM reviews
+            WHERE film_id = :film_id
+                AND useful <= :after_useful
+                AND (useful < :after_useful OR review_id > :after_review_id)
+            ORDER BY useful DESC, review_id
+            LIMIT :count""";
+    private static final String FIND_PAGE_QUERY = """
+            SELECT review_id, content, is_positive, film_id, user_id, useful
+            FROM reviews
+            WHERE useful <= :after_useful
+                AND (useful < :after_useful OR review_id > :after_review_id)
+            ORDER BY useful DESC, review_id
+            LIMIT :count""";
+    private static final String EXISTS_QUERY =
+            "SELECT EXISTS (SELECT 1 FROM reviews WHERE review_id = :id)";
     private static final String INSERT_QUERY = """
-            INSERT INTO reviews (content, is_positive, film_id, user_id)
-            VALUES(:content, :is_positive, :film_id, :user_id)""";
+            INSERT INTO reviews (review_id, content, is_positive, film_id, user_id)
+            VALUES(:review_id, :content, :is_positive, :film_id, :user_id)""";
     private static final String UPDATE_QUERY = """
             UPDATE reviews
             SET content = :content, is_positive = :is_positive
             WHERE review_id = :review_id""";
     private static final String DELETE_BY_ID_QUERY = "DELETE FROM reviews WHERE review_id = :review_id";
     private static final String DELETE_LIKES_BY_REVIEW_QUERY = "DELETE FROM review_likes WHERE review_id = :review_id";
-    private static final String ADD_LIKE_QUERY =
-            "MERGE INTO review_likes (review_id, user_id, is_like) values(:review_id, :user_id, :is_like)";
+    private static final String FLIP_LIKE_QUERY = """
+            UPDATE review_likes
+            SET is_like = :is_like
+            WHERE review_id = :review_id AND user_id = :user_id AND is_like <> :is_like""";
+    private static final String ADD_LIKE_QUERY = """
+            INSERT INTO review_likes (review_id, user_id, is_like)
+            SELECT CAST(:review_id AS integer), CAST(:user_id AS integer), CAST(:is_like AS boolean)
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM review_likes
+                WHERE review_id = :review_id AND user_id = :user_id)""";
     private static final String DELETE_LIKE_QUERY = """
             DELETE FROM review_likes
             WHERE review_id = :review_id AND user_id = :user_id AND is_like = :is_like""";
-    private static final String REFRESH_RATING_QYERY = """
-            UPDATE reviews
-            SET useful = COALESCE ((
-                SELECT COUNT(CASE WHEN is_like THEN 1 END) - COUNT(CASE WHEN NOT is_like THEN 1 END) rating
-                FROM review_likes
-                GROUP BY review_id
-                HAVING review_id = :review_id), 0)
-            WHERE review_id = :review_id""";
-    private static final String DELETE_REVIEW_LIKES_BY_FILM_REVIEW_QUERY = """
-            DELETE FROM review_likes
-            WHERE review_id IN (
-            	SELECT review_id
-            	FROM reviews r
-            	WHERE r.film_id = :film_id)""";
-    private static final String DELETE_FILM_REVIEWS_QUERY = """
-            DELETE FROM reviews
-            WHERE film_id = :film_id""";
-    private static final String DELETE_REVIEW_LIKES_BY_USER_REVIEW_QUERY = """
-            DELETE FROM review_likes
-            WHERE review_id IN (
-            	SELECT review_id
-            	FROM reviews r
-            	WHERE r.user_id = :user_id)""";
-    private static final String DELETE_USER_REVIEWS_QUERY = """
-            DELETE FROM REVIEWS
-            WHERE USER_ID = :user_id""";
-    private static final String FIND_USER_REVIEW_LIKES_QUERY = """
-            SELECT review_id
-            FROM review_likes
-            WHERE user_id = :user_id""";
-    private static final String DELETE_REVIEW_LIKES_BY_USER_QUERY = """
-            DELETE FROM REVIEW_LIKES
-            WHERE USER_ID = :user_id""";
+    private static final String CHANGE_RATING_QUERY =
+            "UPDATE reviews SET useful = useful + :delta WHERE review_id = :review_id";
+    // Полный пересчет рейтинга по review_likes, используется только для исправления расхождений
+    private static final String RECONCILE_RATINGS_QUERY = """
+            UPDATE reviews r
+            SET useful = COALESCE((
+                SELECT SUM(CASE WHEN rl.is_like THEN 1 ELSE -1 END)
+                FROM review_likes rl
+                WHERE rl.review_id = r.review_id), 0)
+            WHERE useful <> COALESCE((
+                SELECT SUM(CASE WHEN rl.is_like THEN 1 ELSE -1 END)
+                FROM review_likes rl
+                WHERE rl.review_id = r.review_id), 0)""";
 
     // endregion
 
@@ -109,8 +127,7 @@ public class JdbcReviewRepository implements ReviewRepository {
 
     @Override
     public List<Review> findByFilmId(int filmId, int count) {
-        String query = FIND_ALL_QUERY + "\nWHERE film_id = :film_id\nORDER BY useful DESC\nLIMIT :count";
-        return jdbc.query(query,
+        return jdbc.query(FIND_BY_FILM_QUERY,
                 new MapSqlParameterSource("film_id", filmId)
                         .addValue("count", count),
                 JdbcReviewRepository::mapRowTo);
@@ -118,22 +135,46 @@ public class JdbcReviewRepository implements ReviewRepository {
 
     @Override
     public List<Review> findAll(int count) {
-        String query = FIND_ALL_QUERY + "\nORDER BY useful DESC\nLIMIT :count";
-        return jdbc.query(query,
+        return jdbc.query(FIND_ALL_QUERY,
                 new MapSqlParameterSource("count", count),
                 JdbcReviewRepository::mapRowTo);
     }
 
+    @Override
+    public List<Review> findPageByFilmId(int filmId, int afterUseful, int afterReviewId, int count) {
+        return jdbc.query(FIND_PAGE_BY_FILM_QUERY,
+                new MapSqlParameterSource("film_id", filmId)
+                        .addValue("after_useful", afterUseful)
+                        .addValue("after_review_id", afterReviewId)
+                        .addValue("count", count),
+                JdbcReviewRepository::mapRowTo);
+    }
+
+    @Override
+    public List<Review> findPage(int afterUseful, int afterReviewId, int count) {
+        return jdbc.query(FIND_PAGE_QUERY,
+                new MapSqlParameterSource("after_useful", afterUseful)
+                        .addValue("after_review_id", afterReviewId)
+                        .addValue("count", count),
+                JdbcReviewRepository::mapRowTo);
+    }
+
+    @Override
+    public boolean exists(int id) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(EXISTS_QUERY,
+                new MapSqlParameterSource("id", id),
+                Boolean.class));
+    }
+
     @Override
     public Review create(Review review) {
-        GeneratedKeyHolder gkh = new GeneratedKeyHolder();
+        review.setReviewId(idAllocator.nextId(IdAllocator.Sequence.REVIEWS));
         jdbc.update(INSERT_QUERY,
-                new MapSqlParameterSource("content", review.getContent())
+                new MapSqlParameterSource("review_id", review.getReviewId())
+                        .addValue("content", review.getContent())
                         .addValue("is_positive", review.getIsPositive())
                         .addValue("film_id", review.getFilmId())
-                        .addValue("user_id", review.getUserId()),
-                gkh);
-        review.setReviewId(gkh.getKeyAs(Integer.class));
+                        .addValue("user_id", review.getUserId()));
         return review;
     }
 
@@ -157,89 +198,71 @@ public class JdbcReviewRepository implements ReviewRepository {
                 new MapSqlParameterSource("review_id", id));
     }
 
-    private void refreshRating(int id) {
-        jdbc.update(REFRESH_RATING_QYERY,
-                new MapSqlParameterSource("review_id", id));
+    private void changeRating(int reviewId, int delta) {
+        jdbc.update(CHANGE_RATING_QUERY,
+                new MapSqlParameterSource("review_id", reviewId)
+                        .addValue("delta", delta));
     }
 
+    // Рейтинг меняется на разницу между прежней и новой оценкой пользователя
     private void addLike(int reviewId, int userId, boolean isLike) {
-        jdbc.update(ADD_LIKE_QUERY,
-                new MapSqlParameterSource("review_id", reviewId)
-                        .addValue("user_id", userId)
-                        .addValue("is_like", isLike));
-        refreshRating(reviewId);
+        MapSqlParameterSource params = new MapSqlParameterSource("review_id", reviewId)
+                .addValue("user_id", userId)
+                .addValue("is_like", isLike);
+        int vote = isLike ? 1 : -1;
+        if (jdbc.update(FLIP_LIKE_QUERY, params) > 0) {
+            changeRating(reviewId, 2 * vote);
+        } else if (insertLike(params)) {
+            changeRating(reviewId, vote);
+        }
+    }
+
+    // Одновременный запрос мог вставить оценку того же пользователя после проверки NOT EXISTS:
+    // его оценка остается, рейтинг уже изменен им
+    private boolean insertLike(MapSqlParameterSource params) {
+        try {
+            return jdbc.update(ADD_LIKE_QUERY, params) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
     }
 
     private void deleteLike(int reviewId, int userId, boolean isLike) {
-        jdbc.update(DELETE_LIKE_QUERY,
+        int deleted = jdbc.update(DELETE_LIKE_QUERY,
                 new MapSqlParameterSource("review_id", reviewId)
                         .addValue("user_id", userId)
                         .addValue("is_like", isLike));
-        refreshRating(reviewId);
-    }
-
-    @Override
-    public void addLike(Review review, User user) {
-        addLike(review.getReviewId(), user.getId(), true);
-    }
-
-    @Override
-    public void addDislike(Review review, User user) {
-        addLike(review.getReviewId(), user.getId(), false);
-    }
-
-    @Override
-    public void deleteLike(Review review, User user) {
-        deleteLike(review.getReviewId(), user.getId(), true);
-    }
-
-    @Override
-    public void deleteDislike(Review review, User user) {
-        deleteLike(review.getReviewId(), user.getId(), false);
-    }
-
-    @Override
-    public void deleteFilmReviewLikes(int filmId) {
-        jdbc.update(DELETE_REVIEW_LIKES_BY_FILM_REVIEW_QUERY,
-                new MapSqlParameterSource("film_id", filmId));
-    }
-
-    @Override
-    public void deleteFilmReviews(int filmId) {
-        jdbc.update(DELETE_FILM_REVIEWS_QUERY,
-                new MapSqlParameterSource("film_id", filmId));
+        if (deleted > 0) {
+            changeRating(reviewId, isLike ? -1 : 1);
+        }
     }
 
     @Override
-    public void deleteUserReviewLikes(int userId) {
-        jdbc.update(DELETE_REVIEW_LIKES_BY_USER_REVIEW_QUERY,
-                new MapSqlParameterSource("user_id", userId));
+    @Transactional
+    public void addLike(int reviewId, int userId) {
+        addLike(reviewId, userId, true);
     }
 
     @Override
-    public void deleteUserReviews(int userId) {
-        jdbc.update(DELETE_USER_REVIEWS_QUERY,
-                new MapSqlParameterSource("user_id", userId));
+    @Transactional
+    public void addDislike(int reviewId, int userId) {
+        addLike(reviewId, userId, false);
     }
 
     @Override
-    public List<Integer> findUserReviewLikes(int userId) {
-        return jdbc.query(FIND_USER_REVIEW_LIKES_QUERY,
-                new MapSqlParameterSource("user_id", userId),
-                (ResultSet rs, int rowNum) -> rs.getInt("review_id"));
+    @Transactional
+    public void deleteLike(int reviewId, int userId) {
+        deleteLike(reviewId, userId, true);
     }
 
     @Override
-    public void deleteReviewLikesByUser(int userId) {
-        jdbc.update(DELETE_REVIEW_LIKES_BY_USER_QUERY,
-                new MapSqlParameterSource("user_id", userId));
+    @Transactional
+    public void deleteDislike(int reviewId, int userId) {
+        deleteLike(reviewId, userId, false);
     }
 
     @Override
-    public void refreshRatings(List<Integer> ids) {
-        MapSqlParameterSource[] batchArgs = ids.stream()
-                .map(id -> new MapSqlParameterSource("review_id", id))
-                .toArray(MapSqlParameterSource[]::new);
-        jdbc.batchUpdate(REFRESH_RATING_QYERY, batchArgs);
+    public int reconcileRatings() {
+        return jdbc.update(RECONCILE_RATINGS_QUERY, new MapSqlParameterSource());
     }
 }
@@ -2,33 +2,58 @@ package ru.yandex.practicum.filmorate.dal.impl;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.IdAllocator;
 import ru.yandex.practicum.filmorate.dal.UserRepository;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 @Repository("jdbcUserRepository")
 @RequiredArgsConstructor
 public class JdbcUserRepository implements UserRepository {
     private final NamedParameterJdbcOperations jdbc;
+    private final IdAllocator idAllocator;
 
     // region SQL queries
 
     private static final String FIND_ALL_QUERY = "SELECT user_id, email, login, user_name, birthday FROM users";
+    private static final String FIND_PAGE_QUERY = """
+            SELECT user_id, email, login, user_name, birthday
+            FROM users
+            WHERE user_id > :after_id
+            ORDER BY user_id
+            LIMIT :limit""";
     private static final String GET_BY_ID_QUERY =
             "SELECT user_id, email, login, user_name, birthday FROM users u WHERE u.user_id = :id";
-    private static final String INSERT_QUERY =
-            "INSERT INTO users (email, login, user_name, birthday) VALUES(:email, :login, :user_name, :birthday)";
+    private static final String GET_BY_IDS_QUERY =
+            "SELECT user_id, email, login, user_name, birthday FROM users WHERE user_id IN (:ids)";
+    private static final String EXPORT_FRIENDS_QUERY =
+            "SELECT user_id, friend_id FROM friends";
+    private static final String EXISTS_QUERY =
+            "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = :id)";
+    private static final String COUNT_BY_IDS_QUERY =
+            "SELECT COUNT(*) FROM users WHERE user_id IN (:ids)";
+    private static final String FIND_EXISTING_IDS_QUERY =
+            "SELECT user_id FROM users WHERE user_id IN (:ids)";
+    private static final String INSERT_QUERY = """
+            INSERT INTO users (user_id, email, login, user_name, birthday)
+            VALUES(:user_id, :email, :login, :user_name, :birthday)""";
     private static final String UPDATE_QUERY = """
             UPDATE users SET email = :email, login = :login, user_name = :user_name, birthday = :birthday
             WHERE user_id = :user_id""";
@@ -61,29 +86,6 @@ public class JdbcUserRepository implements UserRepository {
             		friends fr3
             	WHERE
             		fr3.user_id = :user2_id)""";
-    private static final String DELETE_USER_BY_ID_QUERY = """
-            DELETE FROM users
-            WHERE user_id = :user_id""";
-    private static final String DELETE_USER_LIKES_QUERY = """
-            DELETE FROM likes
-            WHERE user_id = :user_id""";
-    private static final String DELETE_USER_FRIENDS_QUERY = """
-            DELETE FROM friends
-            WHERE user_id = :user_id OR friend_id = :user_id""";
-    private static final String GET_USERS_WITH_COMMON_FILMS_BY_FILMS = """
-            SELECT l.user_id
-            FROM
-                likes AS l
-            INNER JOIN users AS u ON
-                l.user_id = u.user_id
-            WHERE
-                l.film_id IN (:films_id)
-            GROUP BY
-                l.user_id
-            ORDER
-                BY COUNT(l.film_id) DESC
-            LIMIT 10
-            """;
 
     // endregion
 
@@ -100,16 +102,6 @@ public class JdbcUserRepository implements UserRepository {
                 .build();
     }
 
-    private static Set<Integer> mapSetToUserIds(ResultSet rs) throws SQLException {
-        Set<Integer> usersIds = new HashSet<>();
-
-        while (rs.next()) {
-            Integer userId = rs.getInt("user_id");
-            usersIds.add(userId);
-        }
-        return usersIds;
-    }
-
     // endregion
 
     @Override
@@ -131,19 +123,92 @@ public class JdbcUserRepository implements UserRepository {
                 JdbcUserRepository::mapRowTo);
     }
 
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return jdbc.query(FIND_PAGE_QUERY,
+                new MapSqlParameterSource("after_id", afterId)
+                        .addValue("limit", limit),
+                JdbcUserRepository::mapRowTo);
+    }
+
+    @Override
+    public List<User> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        Map<Integer, User> users = new HashMap<>();
+        jdbc.query(GET_BY_IDS_QUERY, new MapSqlParameterSource("ids", ids), JdbcUserRepository::mapRowTo)
+                .forEach(user -> users.put(user.getId(), user));
+        // Сохраняем порядок переданных id
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void exportFriends(BiConsumer<Integer, Integer> consumer) {
+        jdbc.query(EXPORT_FRIENDS_QUERY, (RowCallbackHandler) rs ->
+                consumer.accept(rs.getInt("user_id"), rs.getInt("friend_id")));
+    }
+
+    @Override
+    public boolean exists(int id) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(EXISTS_QUERY,
+                new MapSqlParameterSource("id", id),
+                Boolean.class));
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        Set<Integer> distinct = new HashSet<>(ids);
+        if (distinct.isEmpty()) return true;
+        if (distinct.contains(null)) return false;
+
+        Integer found = jdbc.queryForObject(COUNT_BY_IDS_QUERY,
+                new MapSqlParameterSource("ids", distinct),
+                Integer.class);
+        return found != null && found == distinct.size();
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) return Set.of();
+
+        return new HashSet<>(jdbc.queryForList(FIND_EXISTING_IDS_QUERY,
+                new MapSqlParameterSource("ids", ids),
+                Integer.class));
+    }
+
     @Override
     public User create(User user) {
-        GeneratedKeyHolder gkh = new GeneratedKeyHolder();
-        jdbc.update(INSERT_QUERY,
-                new MapSqlParameterSource("email", user.getEmail())
-                        .addValue("login", user.getLogin())
-                        .addValue("user_name", user.getName())
-                        .addValue("birthday", user.getBirthday()),
-                gkh);
-        user.setId(gkh.getKeyAs(Integer.class));
+        user.setId(idAllocator.nextId(IdAllocator.Sequence.USERS));
+        jdbc.update(INSERT_QUERY, mapUserToParams(user));
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) return users;
+
+        int firstId = idAllocator.reserve(IdAllocator.Sequence.USERS, users.size());
+        MapSqlParameterSource[] batchArgs = new MapSqlParameterSource[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(firstId + i);
+            batchArgs[i] = mapUserToParams(users.get(i));
+        }
+        jdbc.batchUpdate(INSERT_QUERY, batchArgs);
+        return users;
+    }
+
+    private static MapSqlParameterSource mapUserToParams(User user) {
+        return new MapSqlParameterSource("user_id", user.getId())
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("user_name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
     @Override
     public User update(User newUser) {
         jdbc.update(UPDATE_QUERY,
@@ -183,30 +248,4 @@ public class JdbcUserRepository implements UserRepository {
                         .addValue("user2_id", other.getId()),
                 JdbcUserRepository::mapRowTo);
     }
-
-    @Override
-    public void deleteUserById(int userId) {
-        jdbc.update(DELETE_USER_BY_ID_QUERY,
-                new MapSqlParameterSource("user_id", userId));
-    }
-
-    @Override
-    public void deleteUserLikes(int userId) {
-        jdbc.update(DELETE_USER_LIKES_QUERY,
-                new MapSqlParameterSource("user_id", userId));
-    }
-
-    @Override
-    public void deleteUserFriends(int userId) {
-        jdbc.update(DELETE_USER_FRIENDS_QUERY,
-                new MapSqlParameterSource("user_id", userId));
-    }
-
-    @Override
-    public Set<Integer> getUsersWithSameLikes(Set<Integer> films) {
-
-        return jdbc.query(GET_USERS_WITH_COMMON_FILMS_BY_FILMS,
-                new MapSqlParameterSource("films_id", films),
-                JdbcUserRepository::mapSetToUserIds);
-    }
 }
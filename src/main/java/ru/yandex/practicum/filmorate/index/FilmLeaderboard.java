@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+// Рейтинг фильмов по числу лайков: общий, по жанрам и по годам выпуска.
+// Изменения одного фильма выполняются под его собственной блокировкой, чтение - без блокировок.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmLeaderboard {
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+
+    private final ConcurrentMap<Integer, FilmStats> films = new ConcurrentHashMap<>();
+    private final NavigableSet<Rank> global = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<Integer, NavigableSet<Rank>> byGenre = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, NavigableSet<Rank>> byYear = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        films.clear();
+        global.clear();
+        byGenre.clear();
+        byYear.clear();
+
+        Map<Integer, Integer> likes = filmRepository.getLikeCounts();
+        filmRepository.exportAll(film -> {
+            FilmStats stats = new FilmStats(film.getId());
+            stats.likes = likes.getOrDefault(film.getId(), 0);
+            stats.year = yearOf(film);
+            stats.genres = genreIdsOf(film);
+            films.put(stats.filmId, stats);
+            partitions(stats).forEach(p -> p.add(stats.rank()));
+        });
+        log.info("Построен рейтинг фильмов: {}", films.size());
+    }
+
+    public List<Integer> top(int count, Integer genreId, Integer year) {
+        if (count <= 0) return List.of();
+
+        NavigableSet<Rank> source;
+        if (genreId != null) {
+            source = byGenre.getOrDefault(genreId, Collections.emptyNavigableSet());
+        } else if (year != null) {
+            source = byYear.getOrDefault(year, Collections.emptyNavigableSet());
+        } else {
+            source = global;
+        }
+        boolean checkYear = genreId != null && year != null;
+
+        // Во время обновления фильм может кратко присутствовать в рейтинге дважды
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Rank rank : source) {
+            if (ids.size() >= count) break;
+            if (checkYear) {
+                FilmStats stats = films.get(rank.filmId());
+                if (stats == null || !Objects.equals(stats.year, year)) continue;
+            }
+            ids.add(rank.filmId());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    public void onFilmSaved(Film film) {
+        FilmStats stats = films.computeIfAbsent(film.getId(), FilmStats::new);
+        synchronized (stats) {
+            if (stats.removed) return;
+
+            Rank rank = stats.rank();
+            List<NavigableSet<Rank>> before = partitions(stats);
+            stats.year = yearOf(film);
+            stats.genres = genreIdsOf(film);
+            List<NavigableSet<Rank>> after = partitions(stats);
+            after.forEach(p -> p.add(rank));
+            before.stream()
+                    .filter(p -> after.stream().noneMatch(a -> a == p))
+                    .forEach(p -> p.remove(rank));
+        }
+    }
+
+    public void onFilmDeleted(int filmId) {
+        FilmStats stats = films.remove(filmId);
+        if (stats == null) return;
+
+        synchronized (stats) {
+            stats.removed = true;
+            Rank rank = stats.rank();
+            partitions(stats).forEach(p -> p.remove(rank));
+        }
+    }
+
+    public void onLikeChanged(int filmId, int delta) {
+        FilmStats stats = films.get(filmId);
+        if (stats == null) return;
+
+        synchronized (stats) {
+            if (stats.removed) return;
+
+            Rank before = stats.rank();
+            stats.likes += delta;
+            Rank after = stats.rank();
+            List<NavigableSet<Rank>> partitions = partitions(stats);
+            partitions.forEach(p -> p.add(after));
+            partitions.forEach(p -> p.remove(before));
+        }
+    }
+
+    public int getLikes(int filmId) {
+        FilmStats stats = films.get(filmId);
+        return stats != null ? stats.likes : 0;
+    }
+
+    private List<NavigableSet<Rank>> partitions(FilmStats stats) {
+        List<NavigableSet<Rank>> partitions = new ArrayList<>();
+        partitions.add(global);
+        for (Integer genreId : stats.genres) {
+            partitions.add(byGenre.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>()));
+        }
+        if (stats.year != null) {
+            partitions.add(byYear.computeIfAbsent(stats.year, y -> new ConcurrentSkipListSet<>()));
+        }
+        return partitions;
+    }
+
+    private static Integer yearOf(Film film) {
+        return film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null;
+    }
+
+    private static Set<Integer> genreIdsOf(Film film) {
+        if (film.getGenres() == null) return Set.of();
+
+        return film.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static final class FilmStats {
+        private final int filmId;
+        private volatile int likes;
+        private volatile Integer year;
+        private Set<Integer> genres = Set.of();
+        private boolean removed;
+
+        private FilmStats(int filmId) {
+            this.filmId = filmId;
+        }
+
+        private Rank rank() {
+            return new Rank(likes, filmId);
+        }
+    }
+
+    // Порядок совпадает с SQL: like_count DESC, film_id
+    private record Rank(int likes, int filmId) implements Comparable<Rank> {
+        @Override
+        public int compareTo(Rank other) {
+            if (likes != other.likes) {
+                return Integer.compare(other.likes, likes);
+            }
+            return Integer.compare(filmId, other.filmId);
+        }
+    }
+}
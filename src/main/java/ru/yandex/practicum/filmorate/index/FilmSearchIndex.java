@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.DirectorRepository;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Инвертированный индекс триграмм названий фильмов и имен режиссеров для /films/search
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final int GRAM = 3;
+
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+    private final DirectorRepository directorRepository;
+    private final FilmLeaderboard leaderboard;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, String> titles = new HashMap<>();
+    private final Map<String, Set<Integer>> titleGrams = new HashMap<>();
+    private final Map<Integer, String> directorNames = new HashMap<>();
+    private final Map<String, Set<Integer>> directorGrams = new HashMap<>();
+    private final Map<Integer, Set<Integer>> filmDirectors = new HashMap<>();
+    private final Map<Integer, Set<Integer>> directorFilms = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            titleGrams.clear();
+            directorNames.clear();
+            directorGrams.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            directorRepository.findAll().forEach(this::putDirector);
+            filmRepository.exportAll(this::putFilm);
+            log.info("Построен поисковый индекс: фильмов {}, режиссеров {}", titles.size(), directorNames.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Integer> search(String query, String by) {
+        boolean byTitle = false;
+        boolean byDirector = false;
+        for (String field : by.split(",")) {
+            if ("title".equalsIgnoreCase(field.trim())) {
+                byTitle = true;
+            } else if ("director".equalsIgnoreCase(field.trim())) {
+                byDirector = true;
+            } else {
+                throw new IllegalArgumentException("Invalid search parameter: " + by);
+            }
+        }
+
+        String text = query.toLowerCase(Locale.ROOT);
+        Set<Integer> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (byTitle) {
+                found.addAll(match(text, titles, titleGrams));
+            }
+            if (byDirector) {
+                for (Integer directorId : match(text, directorNames, directorGrams)) {
+                    found.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Порядок совпадает с SQL: like_count DESC, film_id
+        List<Integer> ids = new ArrayList<>(found);
+        ids.sort(Comparator.comparingInt((Integer id) -> -leaderboard.getLikes(id))
+                .thenComparingInt(id -> id));
+        return ids;
+    }
+
+    public void onFilmSaved(Film film) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(film.getId());
+            if (film.getDirectors() != null) {
+                film.getDirectors().stream()
+                        .filter(d -> d.getName() != null)
+                        .forEach(this::putDirector);
+            }
+            putFilm(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onFilmDeleted(int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onDirectorSaved(Director director) {
+        lock.writeLock().lock();
+        try {
+            putDirector(director);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onDirectorDeleted(int directorId) {
+        lock.writeLock().lock();
+        try {
+            removeKey(directorId, directorNames, directorGrams);
+            for (Integer filmId : directorFilms.getOrDefault(directorId, Set.of())) {
+                Set<Integer> directors = filmDirectors.get(filmId);
+                if (directors != null) {
+                    directors.remove(directorId);
+                }
+            }
+            directorFilms.remove(directorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putFilm(Film film) {
+        putKey(film.getId(), film.getName(), titles, titleGrams);
+        if (film.getDirectors() == null) return;
+
+        Set<Integer> directors = new HashSet<>();
+        for (Director director : film.getDirectors()) {
+            directors.add(director.getId());
+            directorFilms.computeIfAbsent(director.getId(), id -> new HashSet<>()).add(film.getId());
+        }
+        filmDirectors.put(film.getId(), directors);
+    }
+
+    private void removeFilm(int filmId) {
+        removeKey(filmId, titles, titleGrams);
+        Set<Integer> directors = filmDirectors.remove(filmId);
+        if (directors == null) return;
+
+        for (Integer directorId : directors) {
+            Set<Integer> films = directorFilms.get(directorId);
+            if (films != null) {
+                films.remove(filmId);
+            }
+        }
+    }
+
+    private void putDirector(Director director) {
+        removeKey(director.getId(), directorNames, directorGrams);
+        putKey(director.getId(), director.getName(), directorNames, directorGrams);
+    }
+
+    private static void putKey(int id, String text, Map<Integer, String> texts, Map<String, Set<Integer>> grams) {
+        String lower = text != null ? text.toLowerCase(Locale.ROOT) : "";
+        texts.put(id, lower);
+        for (String gram : grams(lower)) {
+            grams.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removeKey(int id, Map<Integer, String> texts, Map<String, Set<Integer>> grams) {
+        String lower = texts.remove(id);
+        if (lower == null) return;
+
+        for (String gram : grams(lower)) {
+            Set<Integer> ids = grams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Кандидаты - пересечение списков триграмм запроса, затем проверка подстроки
+    private static List<Integer> match(String text, Map<Integer, String> texts, Map<String, Set<Integer>> grams) {
+        List<Integer> result = new ArrayList<>();
+        if (text.length() < GRAM) {
+            texts.forEach((id, value) -> {
+                if (value.contains(text)) {
+                    result.add(id);
+                }
+            });
+            return result;
+        }
+
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (String gram : grams(text)) {
+            Set<Integer> ids = grams.get(gram);
+            if (ids == null) return result;
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        for (Integer id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            if (inAll && texts.get(id).contains(text)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
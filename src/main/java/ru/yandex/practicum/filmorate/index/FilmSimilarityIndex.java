@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+// Похожие фильмы: для каждого фильма хранится top-K фильмов по коэффициенту Жаккара множеств лайкнувших.
+// Списки считаются фоном параллельно по фильмам и публикуются неизменяемым снимком, чтение - без блокировок.
+// Лайк (фильм, пользователь) помечает для пересчета фильм и все фильмы пользователя: у них меняется
+// число общих лайков. У остальных фильмов в паре с этим фильмом меняется только знаменатель,
+// такие оценки уточняются при периодическом полном перестроении
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSimilarityIndex {
+    private final LikeMatrix likeMatrix;
+    @Value("${filmorate.films.similar.top-k:50}")
+    private final int topK;
+    @Value("${filmorate.films.similar.parallelism:0}")
+    private final int parallelism;
+
+    private volatile Map<Integer, int[]> snapshot = Map.of();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.films.similar.rebuild-interval-ms:3600000}",
+            initialDelayString = "${filmorate.films.similar.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        dirty.clear();
+        snapshot = Map.copyOf(compute(likeMatrix.getFilmIds()));
+        log.info("Построены списки похожих фильмов: {} за {} мс",
+                snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Пересчитывает только помеченные фильмы и публикует новый снимок
+    @Scheduled(fixedDelayString = "${filmorate.films.similar.refresh-interval-ms:1000}")
+    public synchronized void refresh() {
+        if (dirty.isEmpty()) return;
+
+        List<Integer> filmIds = new ArrayList<>(dirty);
+        dirty.removeAll(filmIds);
+        Map<Integer, int[]> changed = compute(filmIds);
+        Map<Integer, int[]> next = new HashMap<>(snapshot);
+        for (Integer filmId : filmIds) {
+            int[] similar = changed.get(filmId);
+            if (similar != null) {
+                next.put(filmId, similar);
+            } else {
+                next.remove(filmId);
+            }
+        }
+        snapshot = Map.copyOf(next);
+        log.debug("Обновлены списки похожих фильмов: {}", filmIds.size());
+    }
+
+    public List<Integer> similar(int filmId, int count) {
+        int[] similar = snapshot.getOrDefault(filmId, new int[0]);
+        List<Integer> ids = new ArrayList<>(Math.min(count, similar.length));
+        for (int i = 0; i < similar.length && i < count; i++) {
+            ids.add(similar[i]);
+        }
+        return ids;
+    }
+
+    // Вызывается после изменения матрицы лайков
+    public void onLikeChanged(int filmId, int userId) {
+        dirty.add(filmId);
+        for (int otherId : likeMatrix.getLikedFilms(userId)) {
+            dirty.add(otherId);
+        }
+    }
+
+    public void onLikesChanged(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+        added.forEach((filmId, userIds) -> userIds.forEach(userId -> onLikeChanged(filmId, userId)));
+        removed.forEach((filmId, userIds) -> userIds.forEach(userId -> onLikeChanged(filmId, userId)));
+    }
+
+    public void onFilmsChanged(Collection<Integer> filmIds) {
+        dirty.addAll(filmIds);
+    }
+
+    public void onFilmDeleted(int filmId, int[] likers) {
+        dirty.add(filmId);
+        for (int userId : likers) {
+            onLikeChanged(filmId, userId);
+        }
+    }
+
+    // Фильмы делятся между потоками пула fork/join; фильм без общих лайков в результат не попадает
+    private Map<Integer, int[]> compute(Collection<Integer> filmIds) {
+        Map<Integer, int[]> result = new ConcurrentHashMap<>();
+        pool.submit(() -> filmIds.parallelStream().forEach(filmId -> {
+            int[] similar = computeFilm(filmId);
+            if (similar.length > 0) {
+                result.put(filmId, similar);
+            }
+        })).join();
+        return result;
+    }
+
+    private int[] computeFilm(int filmId) {
+        int[] likers = likeMatrix.getLikers(filmId);
+        IntCounter common = new IntCounter(likers.length * 8);
+        for (int userId : likers) {
+            for (int otherId : likeMatrix.getLikedFilms(userId)) {
+                if (otherId != filmId) {
+                    common.increment(otherId, 1);
+                }
+            }
+        }
+
+        // Старшие биты - коэффициент Жаккара (биты неотрицательного float упорядочены как числа),
+        // младшие - инвертированный id: сортировка по убыванию ставит выше меньший id
+        long[] ranked = new long[common.size()];
+        int[] n = new int[1];
+        common.forEach((otherId, count) -> {
+            int union = likers.length + likeMatrix.getLikers(otherId).length - count;
+            float jaccard = (float) count / Math.max(union, 1);
+            ranked[n[0]++] = ((long) Float.floatToIntBits(jaccard) << 32) | (~otherId & 0xFFFFFFFFL);
+        });
+        Arrays.sort(ranked);
+        int[] similar = new int[Math.min(topK, ranked.length)];
+        for (int i = 0; i < similar.length; i++) {
+            similar[i] = ~(int) ranked[ranked.length - 1 - i];
+        }
+        return similar;
+    }
+}
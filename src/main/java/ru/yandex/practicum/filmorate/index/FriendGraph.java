@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.model.UserDistance;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Граф дружбы в памяти. Дружба односторонняя: для каждого пользователя хранятся отсортированные
+// массивы его друзей и пользователей, добавивших его в друзья. Массив заменяется целиком при изменении
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraph {
+    @Qualifier("jdbcUserRepository")
+    private final UserRepository userRepository;
+    @Value("${filmorate.friends.search.max-depth:6}")
+    private final int maxDepth;
+    @Value("${filmorate.friends.search.max-fan-out:1000}")
+    private final int maxFanOut;
+    @Value("${filmorate.friends.search.time-budget-ms:50}")
+    private final long timeBudgetMs;
+
+    private final ConcurrentMap<Integer, int[]> friends = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, int[]> followers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, IntBuffer> out = new HashMap<>();
+        Map<Integer, IntBuffer> in = new HashMap<>();
+        int[] count = new int[1];
+        userRepository.exportFriends((userId, friendId) -> {
+            out.computeIfAbsent(userId, id -> new IntBuffer()).add(friendId);
+            in.computeIfAbsent(friendId, id -> new IntBuffer()).add(userId);
+            count[0]++;
+        });
+
+        friends.clear();
+        followers.clear();
+        out.forEach((userId, buffer) -> friends.put(userId, buffer.toSortedArray()));
+        in.forEach((userId, buffer) -> followers.put(userId, buffer.toSortedArray()));
+        log.info("Построен граф дружбы: пользователей {}, связей {}", friends.size(), count[0]);
+    }
+
+    public void onFriendAdded(int userId, int friendId) {
+        friends.compute(userId, (id, ids) -> SortedIntArrays.with(ids, friendId));
+        followers.compute(friendId, (id, ids) -> SortedIntArrays.with(ids, userId));
+    }
+
+    public void onFriendDeleted(int userId, int friendId) {
+        friends.computeIfPresent(userId, (id, ids) -> SortedIntArrays.without(ids, friendId));
+        followers.computeIfPresent(friendId, (id, ids) -> SortedIntArrays.without(ids, userId));
+    }
+
+    public void onUserDeleted(int userId) {
+        int[] friendIds = friends.remove(userId);
+        if (friendIds != null) {
+            for (int friendId : friendIds) {
+                followers.computeIfPresent(friendId, (id, ids) -> SortedIntArrays.without(ids, userId));
+            }
+        }
+        int[] followerIds = followers.remove(userId);
+        if (followerIds != null) {
+            for (int followerId : followerIds) {
+                friends.computeIfPresent(followerId, (id, ids) -> SortedIntArrays.without(ids, userId));
+            }
+        }
+    }
+
+    public int[] getFriends(int userId) {
+        return friends.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getFollowers(int userId) {
+        return followers.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getMutualFriends(int userId, int otherId) {
+        return SortedIntArrays.intersection(getFriends(userId), getFriends(otherId));
+    }
+
+    // Друзья друзей, которых еще нет в друзьях, по убыванию числа общих друзей (при равенстве - меньший id).
+    // У каждого пользователя просматривается не больше maxFanOut друзей; по истечении времени
+    // возвращается результат по уже просмотренным друзьям
+    public int[] suggestFriends(int userId, int count) {
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000;
+        int[] direct = getFriends(userId);
+        IntCounter mutual = new IntCounter(Math.min(direct.length, maxFanOut) * 16);
+        for (int i = 0; i < direct.length && i < maxFanOut; i++) {
+            int[] second = getFriends(direct[i]);
+            for (int j = 0; j < second.length && j < maxFanOut; j++) {
+                int candidateId = second[j];
+                if (candidateId != userId && Arrays.binarySearch(direct, candidateId) < 0) {
+                    mutual.increment(candidateId, 1);
+                }
+            }
+            if (System.nanoTime() > deadline) {
+                log.debug("Рекомендации друзей для пользователя {} остановлены по времени", userId);
+                break;
+            }
+        }
+        return mutual.top(count);
+    }
+
+    // Двунаправленный поиск в ширину: вперед по друзьям от userId, назад по добавившим в друзья от otherId.
+    // Каждый шаг раскрывает целый уровень меньшего фронта. Первое пересечение уровней дает кратчайший путь
+    // в пределах ограничений: при обрезке по maxFanOut найденный путь может быть длиннее истинного
+    public UserDistance distance(int userId, int otherId) {
+        if (userId == otherId) return distance(userId, otherId, 0, UserDistance.Status.FOUND);
+
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000;
+        BitSet forwardVisited = new BitSet();
+        BitSet backwardVisited = new BitSet();
+        forwardVisited.set(userId);
+        backwardVisited.set(otherId);
+        int[] forward = {userId};
+        int[] backward = {otherId};
+        int depth = 0;
+        boolean truncated = false;
+
+        while (forward.length > 0 && backward.length > 0) {
+            if (depth >= maxDepth || System.nanoTime() > deadline) {
+                return distance(userId, otherId, null, UserDistance.Status.LIMIT_EXCEEDED);
+            }
+            boolean expandForward = forward.length <= backward.length;
+            Level level = expandForward
+                    ? expand(forward, forwardVisited, backwardVisited, friends)
+                    : expand(backward, backwardVisited, forwardVisited, followers);
+            depth++;
+            truncated |= level.truncated();
+            if (level.met()) return distance(userId, otherId, depth, UserDistance.Status.FOUND);
+
+            if (expandForward) {
+                forward = level.frontier();
+            } else {
+                backward = level.frontier();
+            }
+        }
+        return distance(userId, otherId, null,
+                truncated ? UserDistance.Status.LIMIT_EXCEEDED : UserDistance.Status.NOT_FOUND);
+    }
+
+    private record Level(int[] frontier, boolean met, boolean truncated) {
+    }
+
+    private Level expand(int[] frontier, BitSet visited, BitSet otherVisited, Map<Integer, int[]> edges) {
+        int[] next = new int[Math.max(frontier.length, 16)];
+        int size = 0;
+        boolean truncated = false;
+        for (int nodeId : frontier) {
+            int[] neighbours = edges.getOrDefault(nodeId, SortedIntArrays.EMPTY);
+            truncated |= neighbours.length > maxFanOut;
+            for (int i = 0; i < neighbours.length && i < maxFanOut; i++) {
+                int neighbourId = neighbours[i];
+                if (otherVisited.get(neighbourId)) return new Level(SortedIntArrays.EMPTY, true, truncated);
+                if (visited.get(neighbourId)) continue;
+
+                visited.set(neighbourId);
+                if (size == next.length) {
+                    next = Arrays.copyOf(next, size * 2);
+                }
+                next[size++] = neighbourId;
+            }
+        }
+        return new Level(Arrays.copyOf(next, size), false, truncated);
+    }
+
+    private static UserDistance distance(int userId, int otherId, Integer distance, UserDistance.Status status) {
+        return UserDistance.builder()
+                .userId(userId)
+                .otherId(otherId)
+                .distance(distance)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+// Растущий массив int для сборки списков смежности при перестроении индексов
+final class IntBuffer {
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int[] toSortedArray() {
+        int[] result = Arrays.copyOf(values, size);
+        Arrays.sort(result);
+        return result;
+    }
+}
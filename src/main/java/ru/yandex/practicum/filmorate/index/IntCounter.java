@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+// Счетчик по положительным int-ключам с открытой адресацией, без упаковки в Integer
+final class IntCounter {
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    IntCounter(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    void increment(int key, int delta) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] != 0) {
+            counts[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Ключи с наибольшими значениями; при равенстве значений - с меньшим ключом
+    int[] top(int count) {
+        long[] ranked = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                // Старшие биты - значение, младшие - инвертированный ключ: сортировка по убыванию
+                ranked[n++] = ((long) counts[slot] << 32) | (~keys[slot] & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(ranked);
+        int[] result = new int[Math.min(count, n)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ~(int) ranked[n - 1 - i];
+        }
+        return result;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    interface EntryConsumer {
+        void accept(int key, int count);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Разреженная матрица лайков пользователь x фильм: для каждого пользователя и каждого фильма
+// хранится отсортированный массив id. Массив заменяется целиком при изменении, чтение - без блокировок
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeMatrix {
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+
+    private final ConcurrentMap<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, IntBuffer> films = new HashMap<>();
+        Map<Integer, IntBuffer> users = new HashMap<>();
+        int[] count = new int[1];
+        filmRepository.exportLikes((filmId, userId) -> {
+            films.computeIfAbsent(userId, id -> new IntBuffer()).add(filmId);
+            users.computeIfAbsent(filmId, id -> new IntBuffer()).add(userId);
+            count[0]++;
+        });
+
+        filmsByUser.clear();
+        usersByFilm.clear();
+        films.forEach((userId, buffer) -> filmsByUser.put(userId, buffer.toSortedArray()));
+        users.forEach((filmId, buffer) -> usersByFilm.put(filmId, buffer.toSortedArray()));
+        log.info("Построена матрица лайков: пользователей {}, фильмов {}, лайков {}",
+                filmsByUser.size(), usersByFilm.size(), count[0]);
+    }
+
+    public void onLikeChanged(int filmId, int userId, boolean liked) {
+        if (liked) {
+            filmsByUser.compute(userId, (id, ids) -> SortedIntArrays.with(ids, filmId));
+            usersByFilm.compute(filmId, (id, ids) -> SortedIntArrays.with(ids, userId));
+        } else {
+            filmsByUser.computeIfPresent(userId, (id, ids) -> SortedIntArrays.without(ids, filmId));
+            usersByFilm.computeIfPresent(filmId, (id, ids) -> SortedIntArrays.without(ids, userId));
+        }
+    }
+
+    public void onLikesChanged(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+        added.forEach((filmId, userIds) -> userIds.forEach(userId -> onLikeChanged(filmId, userId, true)));
+        removed.forEach((filmId, userIds) -> userIds.forEach(userId -> onLikeChanged(filmId, userId, false)));
+    }
+
+    public void onFilmDeleted(int filmId) {
+        int[] userIds = usersByFilm.remove(filmId);
+        if (userIds == null) return;
+
+        for (int userId : userIds) {
+            filmsByUser.computeIfPresent(userId, (id, ids) -> SortedIntArrays.without(ids, filmId));
+        }
+    }
+
+    public void onUserDeleted(int userId) {
+        int[] filmIds = filmsByUser.remove(userId);
+        if (filmIds == null) return;
+
+        for (int filmId : filmIds) {
+            usersByFilm.computeIfPresent(filmId, (id, ids) -> SortedIntArrays.without(ids, userId));
+        }
+    }
+
+    public int[] getLikedFilms(int userId) {
+        return filmsByUser.getOrDefault(userId, SortedIntArrays.EMPTY);
+    }
+
+    public int[] getLikers(int filmId) {
+        return usersByFilm.getOrDefault(filmId, SortedIntArrays.EMPTY);
+    }
+
+    public Set<Integer> getUserIds() {
+        return Collections.unmodifiableSet(filmsByUser.keySet());
+    }
+
+    public Set<Integer> getFilmIds() {
+        return Collections.unmodifiableSet(usersByFilm.keySet());
+    }
+
+    // Соседи пользователя - пользователи с наибольшим числом общих лайков (при равенстве - с меньшим id)
+    public int[] neighbours(int userId, int count) {
+        int[] liked = getLikedFilms(userId);
+        IntCounter overlap = new IntCounter(liked.length * 4);
+        for (int filmId : liked) {
+            for (int otherId : getLikers(filmId)) {
+                if (otherId != userId) {
+                    overlap.increment(otherId, 1);
+                }
+            }
+        }
+        return overlap.top(count);
+    }
+
+    // Ранжирует заданных кандидатов по числу общих лайков с пользователем
+    public int[] rankNeighbours(int userId, Collection<Integer> candidateIds, int count) {
+        int[] liked = getLikedFilms(userId);
+        IntCounter overlap = new IntCounter(candidateIds.size());
+        for (int candidateId : candidateIds) {
+            int common = candidateId != userId ? SortedIntArrays.intersectionSize(liked, getLikedFilms(candidateId)) : 0;
+            if (common > 0) {
+                overlap.increment(candidateId, common);
+            }
+        }
+        return overlap.top(count);
+    }
+
+    public List<Integer> recommend(int userId, int neighbourCount) {
+        return recommend(userId, neighbours(userId, neighbourCount));
+    }
+
+    // Фильмы соседей, которые пользователь еще не оценил. Вес фильма - сумма общих лайков
+    // с соседями, которым он понравился; при равенстве выше фильм с меньшим id
+    public List<Integer> recommend(int userId, int[] neighbourIds) {
+        int[] liked = getLikedFilms(userId);
+        if (liked.length == 0) return List.of();
+
+        IntCounter scores = new IntCounter(64);
+        for (int neighbourId : neighbourIds) {
+            int weight = SortedIntArrays.intersectionSize(liked, getLikedFilms(neighbourId));
+            for (int filmId : getLikedFilms(neighbourId)) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.increment(filmId, weight);
+                }
+            }
+        }
+
+        int[] ranked = scores.top(scores.size());
+        List<Integer> filmIds = new ArrayList<>(ranked.length);
+        for (int filmId : ranked) {
+            filmIds.add(filmId);
+        }
+        return filmIds;
+    }
+
+    // Общие фильмы двух пользователей: поиск элементов меньшего массива в большем, O(min * log max)
+    public int[] getCommonFilms(int userId, int otherId) {
+        int[] left = getLikedFilms(userId);
+        int[] right = getLikedFilms(otherId);
+        int[] smaller = left.length <= right.length ? left : right;
+        int[] larger = smaller == left ? right : left;
+        int[] common = new int[smaller.length];
+        int size = 0;
+        for (int filmId : smaller) {
+            if (Arrays.binarySearch(larger, filmId) >= 0) {
+                common[size++] = filmId;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+}
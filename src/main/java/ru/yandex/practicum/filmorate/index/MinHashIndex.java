@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Приближенный поиск соседей: MinHash-сигнатуры множеств лайков пользователей,
+// разбитые на полосы (LSH). Пользователи с совпадающей полосой становятся кандидатами,
+// кандидаты ранжируются по точному числу общих лайков из матрицы
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MinHashIndex {
+    private static final long SEED = 20241016L;
+
+    private final LikeMatrix likeMatrix;
+    @Value("${filmorate.recommendations.lsh.bands:32}")
+    private final int bands;
+    @Value("${filmorate.recommendations.lsh.rows:2}")
+    private final int rows;
+
+    private int[] seeds;
+    private final ConcurrentMap<Integer, Signature> signatures = new ConcurrentHashMap<>();
+    // Ключ корзины - номер полосы в старших битах и хеш значений полосы в младших
+    private final ConcurrentMap<Long, Set<Integer>> buckets = new ConcurrentHashMap<>();
+
+    private record Signature(int[] values, long[] bandKeys) {
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Random random = new Random(SEED);
+        seeds = new int[bands * rows];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextInt();
+        }
+
+        signatures.clear();
+        buckets.clear();
+        for (int userId : likeMatrix.getUserIds()) {
+            refresh(userId);
+        }
+        log.info("Построен MinHash-индекс: пользователей {}, корзин {}, полос {} по {} хешей",
+                signatures.size(), buckets.size(), bands, rows);
+    }
+
+    // Вызывается после изменения матрицы лайков
+    public void onLikeChanged(int filmId, int userId, boolean liked) {
+        if (!liked) {
+            refresh(userId);
+            return;
+        }
+        signatures.compute(userId, (id, old) -> {
+            if (old == null) return update(userId, null, signature(likeMatrix.getLikedFilms(userId)));
+
+            int[] values = old.values().clone();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Math.min(values[i], hash(filmId, seeds[i]));
+            }
+            return update(userId, old, values);
+        });
+    }
+
+    public void onLikesChanged(Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+        added.forEach((filmId, userIds) -> userIds.forEach(userId -> onLikeChanged(filmId, userId, true)));
+        removed.forEach((filmId, userIds) -> userIds.forEach(this::refresh));
+    }
+
+    // Пересчет сигнатуры по текущим лайкам пользователя: после удаления лайка минимум может вырасти
+    public void refresh(int userId) {
+        signatures.compute(userId, (id, old) -> update(userId, old, signature(likeMatrix.getLikedFilms(userId))));
+    }
+
+    public void onUserDeleted(int userId) {
+        signatures.computeIfPresent(userId, (id, old) -> update(userId, old, null));
+    }
+
+    public int[] neighbours(int userId, int count) {
+        Signature signature = signatures.get(userId);
+        if (signature == null) return new int[0];
+
+        Set<Integer> candidates = new HashSet<>();
+        for (long key : signature.bandKeys()) {
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        return likeMatrix.rankNeighbours(userId, candidates, count);
+    }
+
+    // Переносит пользователя в корзины новой сигнатуры; null - пользователь без лайков
+    private Signature update(int userId, Signature old, int[] values) {
+        long[] keys = values != null ? bandKeys(values) : null;
+        for (int band = 0; band < bands; band++) {
+            long oldKey = old != null ? old.bandKeys()[band] : 0;
+            long newKey = keys != null ? keys[band] : 0;
+            if (old != null && (keys == null || oldKey != newKey)) {
+                buckets.computeIfPresent(oldKey, (key, users) -> {
+                    users.remove(userId);
+                    return users.isEmpty() ? null : users;
+                });
+            }
+            if (keys != null && (old == null || oldKey != newKey)) {
+                buckets.computeIfAbsent(newKey, key -> ConcurrentHashMap.newKeySet()).add(userId);
+            }
+        }
+        return keys != null ? new Signature(values, keys) : null;
+    }
+
+    private int[] signature(int[] filmIds) {
+        if (filmIds.length == 0) return null;
+
+        int[] values = new int[seeds.length];
+        Arrays.fill(values, Integer.MAX_VALUE);
+        for (int filmId : filmIds) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Math.min(values[i], hash(filmId, seeds[i]));
+            }
+        }
+        return values;
+    }
+
+    private long[] bandKeys(int[] values) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            int h = 1;
+            for (int row = 0; row < rows; row++) {
+                h = 31 * h + values[band * rows + row];
+            }
+            keys[band] = ((long) band << 32) | (h & 0xFFFFFFFFL);
+        }
+        return keys;
+    }
+
+    // Финальное перемешивание MurmurHash3: разные seed дают независимые перестановки id фильмов
+    private static int hash(int value, int seed) {
+        int h = value ^ seed;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
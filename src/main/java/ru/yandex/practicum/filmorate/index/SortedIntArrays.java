@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+// Операции над отсортированными массивами id без повторов. Массивы не изменяются:
+// при добавлении и удалении возвращается новый массив, поэтому их можно читать без блокировок
+public final class SortedIntArrays {
+    public static final int[] EMPTY = new int[0];
+
+    private SortedIntArrays() {
+    }
+
+    public static int[] with(int[] ids, int id) {
+        if (ids == null) return new int[]{id};
+
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) return ids;
+
+        int insertAt = -index - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, insertAt);
+        result[insertAt] = id;
+        System.arraycopy(ids, insertAt, result, insertAt + 1, ids.length - insertAt);
+        return result;
+    }
+
+    // Вместо пустого массива возвращается null, чтобы запись удалялась из карты
+    public static int[] without(int[] ids, int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) return ids;
+        if (ids.length == 1) return null;
+
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return result;
+    }
+
+    public static int intersectionSize(int[] left, int[] right) {
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    // Пересечение слиянием за O(left + right)
+    public static int[] intersection(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
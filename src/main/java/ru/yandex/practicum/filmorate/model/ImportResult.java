@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ImportResult {
+    private Long imported;
+    private Long rejected;
+    private List<String> errors;
+    private Long elapsedMs;
+    private Long rowsPerSecond;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LikeBatchItem {
+    private Integer filmId;
+    private Integer userId;
+    private Operation op;
+
+    public enum Operation { ADD, REMOVE }
+}
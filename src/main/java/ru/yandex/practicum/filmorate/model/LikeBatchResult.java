@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LikeBatchResult {
+    private Integer filmId;
+    private Integer userId;
+    private LikeBatchItem.Operation op;
+    private Status status;
+
+    public enum Status { APPLIED, UNCHANGED, FILM_NOT_FOUND, USER_NOT_FOUND, INVALID }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PurgeTask {
+    private Integer taskId;
+    private Status status;
+    // Число переданных id, обработанных id и удаленных пользователей (несуществующие id пропускаются)
+    private Integer requested;
+    private Integer processed;
+    private Integer deleted;
+    private String error;
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserDistance {
+    private Integer userId;
+    private Integer otherId;
+    // Число переходов по друзьям; null, если путь не найден
+    private Integer distance;
+    private Status status;
+
+    // LIMIT_EXCEEDED - поиск остановлен по глубине, числу друзей или времени, путь может существовать
+    public enum Status { FOUND, NOT_FOUND, LIMIT_EXCEEDED }
+}
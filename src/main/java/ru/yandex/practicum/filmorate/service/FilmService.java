@@ -1,14 +1,21 @@
 package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmService {
     Film get(int id);
 
     List<Film> findAll();
 
+    List<Film> findPage(Integer afterId, int limit);
+
+    void exportAll(Consumer<Film> consumer);
+
     Film create(Film film);
 
     Film update(Film newFilm);
@@ -17,10 +24,14 @@ public interface FilmService {
 
     void deleteLike(int filmId, int userId);
 
+    List<LikeBatchResult> applyLikes(List<LikeBatchItem> items);
+
     List<Film> getTopFilms(int maxCount);
 
     List<Film> getTopFilms(int count, Integer genreId, Integer year);
 
+    List<Film> getSimilarFilms(int filmId, int count);
+
     List<Film> getDirectorFilms(int directorId, String sortBy);
 
     void deleteFilmById(int filmId);
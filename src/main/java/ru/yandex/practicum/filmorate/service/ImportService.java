@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.ImportResult;
+
+import java.io.InputStream;
+
+public interface ImportService {
+    ImportResult importUsers(InputStream in, Format format);
+
+    ImportResult importFilms(InputStream in, Format format);
+
+    enum Format { NDJSON, CSV }
+}
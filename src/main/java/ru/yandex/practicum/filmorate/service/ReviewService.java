@@ -7,7 +7,7 @@ import java.util.List;
 public interface ReviewService {
     Review get(int id);
 
-    List<Review> findByFilmId(Integer filmId, int count);
+    List<Review> findByFilmId(Integer filmId, int count, String after);
 
     Review create(Review review);
 
@@ -2,7 +2,9 @@ package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PurgeTask;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDistance;
 
 import java.util.List;
 
@@ -11,6 +13,8 @@ public interface UserService {
 
     List<User> findAll();
 
+    List<User> findPage(Integer afterId, int limit);
+
     User create(User user);
 
     User update(User newUser);
@@ -23,9 +27,22 @@ public interface UserService {
 
     List<User> getMutualFriends(int userId, int otherId);
 
+    List<User> getFriendSuggestions(int userId, int count);
+
+    UserDistance getDistance(int userId, int otherId);
+
     List<Feed> getFeed(int userId);
 
+    List<Feed> getFeedPage(int userId, Integer afterEventId, int limit);
+
     void deleteUserById(int userId);
 
-    List<Film> getRecommendedFilms(int id);
+    PurgeTask purgeUsers(List<Integer> userIds);
+
+    PurgeTask getPurgeTask(int taskId);
+
+    List<Film> getRecommendedFilms(int id, String mode);
+
+    // EXACT - соседи по всем пользователям с общими лайками, APPROXIMATE - по корзинам MinHash/LSH
+    enum RecommendationMode { EXACT, APPROXIMATE }
 }
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import java.util.concurrent.ThreadFactory;
+
+// Потоки фоновых задач: виртуальные при spring.threads.virtual.enabled, иначе платформенные потоки-демоны
+final class BackgroundThreads {
+    private BackgroundThreads() {
+    }
+
+    static ThreadFactory factory(String name, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(name).factory()
+                : Thread.ofPlatform().name(name).daemon().factory();
+    }
+}
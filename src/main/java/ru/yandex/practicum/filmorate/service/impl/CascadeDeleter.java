@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.CascadeRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Удаление пользователей и фильмов: связанные записи удаляются в базе одной транзакцией,
+// после фиксации изменения переносятся в индексы в памяти. Отложенные лайки и события
+// записываются заранее, чтобы не остаться в очереди после удаления; лайки, поставленные в буфер
+// между сбросом и удалением, отбрасываются после него
+@Component
+@RequiredArgsConstructor
+public class CascadeDeleter {
+    private final CascadeRepository cascadeRepository;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final FriendGraph friendGraph;
+    private final LikeMatrix likeMatrix;
+    private final MinHashIndex minHashIndex;
+    private final FilmSimilarityIndex similarityIndex;
+    private final LikeWriteBuffer likeBuffer;
+    private final FeedAppender feedAppender;
+
+    public void deleteUsers(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) return;
+
+        likeBuffer.flush();
+        feedAppender.flush();
+        Map<Integer, Integer> removedLikes = cascadeRepository.deleteUsers(userIds);
+        Map<Integer, Integer> buffered = likeBuffer.discard(List.of(), userIds);
+
+        removedLikes.forEach((filmId, count) -> leaderboard.onLikeChanged(filmId, -count));
+        buffered.forEach(leaderboard::onLikeChanged);
+        for (int userId : userIds) {
+            likeMatrix.onUserDeleted(userId);
+            minHashIndex.onUserDeleted(userId);
+            friendGraph.onUserDeleted(userId);
+        }
+        Set<Integer> changedFilms = new HashSet<>(removedLikes.keySet());
+        changedFilms.addAll(buffered.keySet());
+        similarityIndex.onFilmsChanged(changedFilms);
+    }
+
+    public void deleteFilms(Collection<Integer> filmIds) {
+        if (filmIds.isEmpty()) return;
+
+        likeBuffer.flush();
+        cascadeRepository.deleteFilms(filmIds);
+        // Рейтинг удаленных фильмов удаляется целиком, поправки не нужны
+        likeBuffer.discard(filmIds, List.of());
+
+        for (int filmId : filmIds) {
+            leaderboard.onFilmDeleted(filmId);
+            searchIndex.onFilmDeleted(filmId);
+            int[] likers = likeMatrix.getLikers(filmId);
+            likeMatrix.onFilmDeleted(filmId);
+            for (int userId : likers) {
+                minHashIndex.refresh(userId);
+            }
+            similarityIndex.onFilmDeleted(filmId, likers);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Потоковое чтение CSV (RFC 4180): поле в кавычках может содержать запятые, переводы строк
+// и кавычки, записанные дважды. Запись читается посимвольно, весь файл в память не загружается
+final class CsvReader implements Closeable {
+    private final Reader reader;
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    // Поля следующей записи или null в конце потока
+    String[] next() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == -1) {
+                    quoted = false;
+                    continue;
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == -1 || c == '\n') {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    line++;
+                }
+                return fields.toArray(String[]::new);
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = reader.read();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            fieldStart = false;
+            c = reader.read();
+        }
+    }
+
+    // Номер строки, с которой началась последняя прочитанная запись
+    long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dal.DirectorRepository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
@@ -13,6 +14,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorServiceImpl implements DirectorService {
     private final DirectorRepository directorRepository;
+    private final FilmSearchIndex searchIndex;
 
     @Override
     public Director get(int id) {
@@ -27,18 +29,23 @@ public class DirectorServiceImpl implements DirectorService {
 
     @Override
     public Director create(Director director) {
-        return directorRepository.create(director);
+        Director created = directorRepository.create(director);
+        searchIndex.onDirectorSaved(created);
+        return created;
     }
 
     @Override
     public Director update(Director newDirector) {
         directorRepository.get(newDirector.getId())
                 .orElseThrow(() -> new NotFoundException("Режиссер с id = " + newDirector.getId() + " не найден"));
-        return directorRepository.update(newDirector);
+        Director updated = directorRepository.update(newDirector);
+        searchIndex.onDirectorSaved(updated);
+        return updated;
     }
 
     @Override
     public void delete(int id) {
         directorRepository.delete(id);
+        searchIndex.onDirectorDeleted(id);
     }
 }
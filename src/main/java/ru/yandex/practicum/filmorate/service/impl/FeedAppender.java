@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FeedRepository;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Запись событий ленты. В асинхронных режимах события копятся в ограниченной очереди
+// и записываются пачками одним потоком в порядке поступления, поэтому порядок событий
+// каждого пользователя сохраняется
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeedAppender {
+    private final FeedRepository feedRepository;
+    @Value("${filmorate.feed.mode:ASYNC_FLUSH_ON_READ}")
+    private final Mode mode;
+    @Value("${filmorate.feed.queue-capacity:10000}")
+    private final int capacity;
+    @Value("${filmorate.feed.batch-size:500}")
+    private final int batchSize;
+    @Value("${filmorate.feed.drain-interval-ms:50}")
+    private final long drainIntervalMs;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private final boolean virtualThreads;
+
+    private final Queue<Feed> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // Число событий пользователя, еще не записанных в базу
+    private final ConcurrentMap<Integer, Integer> pendingByUser = new ConcurrentHashMap<>();
+    private final Lock drainLock = new ReentrantLock();
+    private ScheduledExecutorService drainer;
+    // После остановки фоновой записи события пишутся в запросе
+    private volatile boolean stopped;
+
+    // SYNC - запись в запросе, ASYNC - фоновая запись без гарантий для чтения,
+    // ASYNC_FLUSH_ON_READ - фоновая запись, но лента пользователя читается только после записи его событий
+    public enum Mode { SYNC, ASYNC, ASYNC_FLUSH_ON_READ }
+
+    @PostConstruct
+    public void start() {
+        if (mode == Mode.SYNC) return;
+
+        drainer = Executors.newSingleThreadScheduledExecutor(BackgroundThreads.factory("feed-drainer", virtualThreads));
+        drainer.scheduleWithFixedDelay(this::drainInBackground, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Запись ленты событий: {}, очередь на {} событий", mode, capacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (drainer == null) return;
+
+        stopped = true;
+        drainer.shutdown();
+        drainer.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        log.info("Очередь ленты событий записана перед остановкой");
+    }
+
+    public void append(Feed feed) {
+        if (mode == Mode.SYNC || stopped) {
+            feedRepository.create(feed);
+            return;
+        }
+
+        int queued;
+        // Очередь переполнена: запрос сам записывает накопленное вместо того, чтобы терять события
+        while ((queued = size.incrementAndGet()) > capacity) {
+            size.decrementAndGet();
+            flush();
+        }
+        pendingByUser.merge(feed.getUserId(), 1, Integer::sum);
+        queue.add(feed);
+        if (stopped) {
+            // Остановка началась после проверки выше: последний сброс в stop мог пройти без этого события
+            flush();
+        } else if (queued % batchSize == 0) {
+            try {
+                drainer.execute(this::drainInBackground);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    // Вызывается перед чтением ленты пользователя
+    public void beforeRead(int userId) {
+        if (mode != Mode.ASYNC_FLUSH_ON_READ) return;
+
+        while (pendingByUser.containsKey(userId)) {
+            flush();
+        }
+    }
+
+    // Записывает все события, поставленные в очередь до вызова
+    public void flush() {
+        if (mode == Mode.SYNC) return;
+
+        drainLock.lock();
+        try {
+            boolean drained;
+            do {
+                drained = drainBatch();
+            } while (drained);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public int pendingCount() {
+        return size.get();
+    }
+
+    private void drainInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать события ленты", e);
+        }
+    }
+
+    private boolean drainBatch() {
+        List<Feed> batch = new ArrayList<>();
+        Feed feed;
+        while (batch.size() < batchSize && (feed = queue.poll()) != null) {
+            batch.add(feed);
+        }
+        if (batch.isEmpty()) return false;
+
+        size.addAndGet(-batch.size());
+        try {
+            feedRepository.createAll(batch);
+        } catch (DataAccessException e) {
+            log.warn("Пачка событий ленты не записана, повтор по одному: {}", e.getMessage());
+            batch.forEach(this::writeOne);
+        } finally {
+            batch.forEach(written -> pendingByUser.computeIfPresent(written.getUserId(),
+                    (userId, count) -> count == 1 ? null : count - 1));
+        }
+        return true;
+    }
+
+    private void writeOne(Feed feed) {
+        try {
+            feedRepository.createAll(List.of(feed));
+        } catch (DataAccessException e) {
+            log.error("Событие ленты {} потеряно: {}", feed, e.getMessage());
+        }
+    }
+}
@@ -4,17 +4,35 @@ import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.dal.*;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class FilmServiceImpl implements FilmService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_LIKE_BATCH_SIZE = 10_000;
+    private static final int LIKE_BATCH_CHUNK_SIZE = 1000;
+
     @Qualifier("jdbcFilmRepository")
     private final FilmRepository filmRepository;
     @Qualifier("jdbcUserRepository")
@@ -23,7 +41,16 @@ public class FilmServiceImpl implements FilmService {
     private final MpaRepository mpaRepository;
     private final FeedRepository feedRepository;
     private final DirectorRepository directorRepository;
-    private final ReviewRepository reviewRepository;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final LikeMatrix likeMatrix;
+    private final MinHashIndex minHashIndex;
+    private final FilmSimilarityIndex similarityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final LikeWriteBuffer likeBuffer;
+    private final FeedAppender feedAppender;
+    private final CascadeDeleter cascadeDeleter;
+    private final ParallelLookups lookups;
 
     @Override
     public Film get(int id) {
@@ -37,33 +64,26 @@ public class FilmServiceImpl implements FilmService {
     }
 
     @Override
-    public Film create(Film film) {
-        Mpa mpa = null;
-        if (film.getMpa() != null) {
-            Integer mpaId = film.getMpa().getId();
-            mpa = mpaRepository.get(mpaId)
-                    .orElseThrow(() -> new ValidationException("Рейтинг с id = " + mpaId + " не найден"));
+    public List<Film> findPage(Integer afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
         }
+        return filmRepository.findPage(afterId != null ? afterId : 0, limit);
+    }
 
-        List<Genre> genres = null;
-        if (film.getGenres() != null) {
-            final List<Integer> genreIds = film.getGenres().stream().map(Genre::getId).toList();
-            genres = genreRepository.getByIds(genreIds);
-            if (genreIds.size() != genres.size()) {
-                throw new ValidationException("Жанры не найдены");
-            }
-        }
+    @Override
+    public void exportAll(Consumer<Film> consumer) {
+        filmRepository.exportAll(consumer);
+    }
 
-        List<Director> directors = null;
-        if (film.getDirectors() != null) {
-            final List<Integer> directorIds = film.getDirectors().stream().map(Director::getId).toList();
-            directors = directorRepository.getByIds(directorIds);
-            if (directorIds.size() != directors.size()) {
-                throw new ValidationException("Режиссеры не найдены");
-            }
-        }
+    @Override
+    public Film create(Film film) {
+        // Рейтинг и жанры берутся из справочников в памяти, в базу идет только поиск режиссеров
+        Mpa mpa = findMpa(film.getMpa());
+        List<Genre> genres = findGenres(film.getGenres());
+        List<Director> directors = findDirectors(film.getDirectors());
 
-        return filmRepository.create(Film.builder()
+        Film created = filmRepository.create(Film.builder()
                 .name(film.getName())
                 .description(film.getDescription())
                 .releaseDate(film.getReleaseDate())
@@ -72,83 +92,206 @@ public class FilmServiceImpl implements FilmService {
                 .genres(genres != null ? new LinkedHashSet<>(genres) : null)
                 .directors(directors != null ? new LinkedHashSet<>(directors) : null)
                 .build());
+        leaderboard.onFilmSaved(created);
+        searchIndex.onFilmSaved(created);
+        return created;
     }
 
     @Override
     public Film update(Film newFilm) {
-        final Film f = filmRepository.get(newFilm.getId())
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден"));
-
-        Mpa mpa = null;
-        if (newFilm.getMpa() != null) {
-            Integer mpaId = newFilm.getMpa().getId();
-            mpa = mpaRepository.get(mpaId)
-                    .orElseThrow(() -> new ValidationException("Рейтинг с id = " + mpaId + " не найден"));
-        }
+        Film updated;
+        // Параллельно выполняются только чтения из базы: фильм и режиссеры
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            Supplier<Film> film = scope.fork(() -> filmRepository.get(newFilm.getId())
+                    .orElseThrow(() -> new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден")));
+            Supplier<List<Director>> directors = scope.fork(() -> findDirectors(newFilm.getDirectors()));
+            scope.join();
 
-        List<Genre> genres = List.of();
-        if (newFilm.getGenres() != null) {
-            final List<Integer> genreIds = newFilm.getGenres().stream().map(Genre::getId).toList();
-            genres = genreRepository.getByIds(genreIds);
-            if (genreIds.size() != genres.size()) {
-                throw new ValidationException("Жанры не найдены");
-            }
+            Mpa mpa = findMpa(newFilm.getMpa());
+            List<Genre> genres = findGenres(newFilm.getGenres());
+            final Film f = film.get();
+            f.setName(newFilm.getName());
+            f.setDescription(newFilm.getDescription());
+            f.setReleaseDate(newFilm.getReleaseDate());
+            f.setDuration(newFilm.getDuration());
+            f.setMpa(mpa);
+            f.setGenres(new LinkedHashSet<>(genres != null ? genres : List.of()));
+            f.setDirectors(new LinkedHashSet<>(directors.get() != null ? directors.get() : List.of()));
+            updated = filmRepository.update(f);
         }
+        leaderboard.onFilmSaved(updated);
+        searchIndex.onFilmSaved(updated);
+        return updated;
+    }
 
-        List<Director> directors = List.of();
-        if (newFilm.getDirectors() != null) {
-            final List<Integer> directorIds = newFilm.getDirectors().stream().map(Director::getId).toList();
-            directors = directorRepository.getByIds(directorIds);
-            if (directorIds.size() != directors.size()) {
-                throw new ValidationException("Режиссеры не найдены");
-            }
+    private Mpa findMpa(Mpa mpa) {
+        if (mpa == null) return null;
+
+        Integer mpaId = mpa.getId();
+        return mpaRepository.get(mpaId)
+                .orElseThrow(() -> new ValidationException("Рейтинг с id = " + mpaId + " не найден"));
+    }
+
+    private List<Genre> findGenres(Set<Genre> requested) {
+        if (requested == null) return null;
+
+        final List<Integer> genreIds = requested.stream().map(Genre::getId).toList();
+        List<Genre> genres = genreRepository.getByIds(genreIds);
+        if (genreIds.size() != genres.size()) {
+            throw new ValidationException("Жанры не найдены");
         }
+        return genres;
+    }
 
-        f.setName(newFilm.getName());
-        f.setDescription(newFilm.getDescription());
-        f.setReleaseDate(newFilm.getReleaseDate());
-        f.setDuration(newFilm.getDuration());
-        f.setMpa(mpa);
-        f.setGenres(new LinkedHashSet<>(genres));
-        f.setDirectors(new LinkedHashSet<>(directors));
+    private List<Director> findDirectors(Set<Director> requested) {
+        if (requested == null) return null;
 
-        return filmRepository.update(f);
+        final List<Integer> directorIds = requested.stream().map(Director::getId).toList();
+        List<Director> directors = directorRepository.getByIds(directorIds);
+        if (directorIds.size() != directors.size()) {
+            throw new ValidationException("Режиссеры не найдены");
+        }
+        return directors;
     }
 
     @Override
     public void addLike(int filmId, int userId) {
-        Film film = filmRepository.get(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        filmRepository.addLike(film, user);
+        checkFilmExists(filmId);
+        checkUserExists(userId);
+        likeBuffer.addLike(filmId, userId, () -> {
+            leaderboard.onLikeChanged(filmId, 1);
+            likeMatrix.onLikeChanged(filmId, userId, true);
+            minHashIndex.onLikeChanged(filmId, userId, true);
+            similarityIndex.onLikeChanged(filmId, userId);
+        });
         addLikeFeed(userId, filmId, Feed.Operation.ADD);
     }
 
     @Override
     public void deleteLike(int filmId, int userId) {
-        Film film = filmRepository.get(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        filmRepository.deleteLike(film, user);
+        checkFilmExists(filmId);
+        checkUserExists(userId);
+        likeBuffer.deleteLike(filmId, userId, () -> {
+            leaderboard.onLikeChanged(filmId, -1);
+            likeMatrix.onLikeChanged(filmId, userId, false);
+            minHashIndex.onLikeChanged(filmId, userId, false);
+            similarityIndex.onLikeChanged(filmId, userId);
+        });
         addLikeFeed(userId, filmId, Feed.Operation.REMOVE);
     }
 
+    @Override
+    public List<LikeBatchResult> applyLikes(List<LikeBatchItem> items) {
+        if (items.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ValidationException("Размер пакета лайков не должен превышать " + MAX_LIKE_BATCH_SIZE);
+        }
+        likeBuffer.flush();
+        // События пакета пишутся напрямую, поэтому сначала записываются ранее поставленные в очередь
+        feedAppender.flush();
+        List<LikeBatchResult> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += LIKE_BATCH_CHUNK_SIZE) {
+            List<LikeBatchItem> chunk = items.subList(from, Math.min(from + LIKE_BATCH_CHUNK_SIZE, items.size()));
+            LikeChunk applied = transactionTemplate.execute(status -> applyLikeChunk(chunk));
+            // Рейтинг в памяти меняется только после фиксации транзакции
+            applied.likeDeltas().forEach(leaderboard::onLikeChanged);
+            likeMatrix.onLikesChanged(applied.added(), applied.removed());
+            minHashIndex.onLikesChanged(applied.added(), applied.removed());
+            similarityIndex.onLikesChanged(applied.added(), applied.removed());
+            results.addAll(applied.results());
+        }
+        return results;
+    }
+
+    // Элементы применяются по порядку, как последовательность одиночных запросов,
+    // но в базу уходит только итоговая разница и одна пачка событий ленты
+    private LikeChunk applyLikeChunk(List<LikeBatchItem> chunk) {
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeBatchItem item : chunk) {
+            if (item.getFilmId() != null) filmIds.add(item.getFilmId());
+            if (item.getUserId() != null) userIds.add(item.getUserId());
+        }
+        // Обычно все id порции существуют: проверка одним COUNT, список найденных id - только если нет
+        Set<Integer> existingFilms = filmRepository.existsAll(filmIds) ? filmIds
+                : filmRepository.findExistingIds(filmIds);
+        Set<Integer> existingUsers = userRepository.existsAll(userIds) ? userIds
+                : userRepository.findExistingIds(userIds);
+        Map<Integer, Set<Integer>> before = filmRepository.findLikes(existingFilms, existingUsers);
+        Map<Integer, Set<Integer>> after = new HashMap<>();
+        before.forEach((filmId, users) -> after.put(filmId, new HashSet<>(users)));
+
+        List<LikeBatchResult> results = new ArrayList<>(chunk.size());
+        List<Feed> feeds = new ArrayList<>();
+        for (LikeBatchItem item : chunk) {
+            LikeBatchResult.Status status;
+            if (item.getFilmId() == null || item.getUserId() == null || item.getOp() == null) {
+                status = LikeBatchResult.Status.INVALID;
+            } else if (!existingFilms.contains(item.getFilmId())) {
+                status = LikeBatchResult.Status.FILM_NOT_FOUND;
+            } else if (!existingUsers.contains(item.getUserId())) {
+                status = LikeBatchResult.Status.USER_NOT_FOUND;
+            } else {
+                Set<Integer> users = after.computeIfAbsent(item.getFilmId(), id -> new HashSet<>());
+                boolean changed = item.getOp() == LikeBatchItem.Operation.ADD
+                        ? users.add(item.getUserId())
+                        : users.remove(item.getUserId());
+                status = changed ? LikeBatchResult.Status.APPLIED : LikeBatchResult.Status.UNCHANGED;
+                feeds.add(new Feed(item.getUserId(), item.getFilmId(), Feed.EventType.LIKE,
+                        Feed.Operation.valueOf(item.getOp().name())));
+            }
+            results.add(LikeBatchResult.builder()
+                    .filmId(item.getFilmId())
+                    .userId(item.getUserId())
+                    .op(item.getOp())
+                    .status(status)
+                    .build());
+        }
+
+        Map<Integer, Set<Integer>> added = new HashMap<>();
+        Map<Integer, Set<Integer>> removed = new HashMap<>();
+        after.forEach((filmId, users) -> {
+            Set<Integer> old = before.getOrDefault(filmId, Set.of());
+            users.stream()
+                    .filter(userId -> !old.contains(userId))
+                    .forEach(userId -> added.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId));
+            old.stream()
+                    .filter(userId -> !users.contains(userId))
+                    .forEach(userId -> removed.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId));
+        });
+        Map<Integer, Integer> likeDeltas = new HashMap<>(filmRepository.addLikes(added));
+        filmRepository.deleteLikes(removed).forEach((filmId, delta) -> likeDeltas.merge(filmId, delta, Integer::sum));
+        feedRepository.createAll(feeds);
+        return new LikeChunk(results, likeDeltas, added, removed);
+    }
+
+    private record LikeChunk(List<LikeBatchResult> results, Map<Integer, Integer> likeDeltas,
+                             Map<Integer, Set<Integer>> added, Map<Integer, Set<Integer>> removed) {
+    }
+
     @Override
     public List<Film> getTopFilms(int maxCount) {
-        return filmRepository.getTopFilms(maxCount);
+        return filmRepository.getByIds(leaderboard.top(maxCount, null, null));
     }
 
     @Override
     public List<Film> getTopFilms(int count, Integer genreId, Integer year) {
-        return filmRepository.getTopFilms(count, genreId, year);
+        return filmRepository.getByIds(leaderboard.top(count, genreId, year));
+    }
+
+    @Override
+    public List<Film> getSimilarFilms(int filmId, int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество похожих фильмов должно быть положительным");
+        }
+        checkFilmExists(filmId);
+        return filmRepository.getByIds(similarityIndex.similar(filmId, count));
     }
 
     @Override
     public List<Film> getDirectorFilms(int directorId, String sortBy) {
         List<Film> films = null;
         if ("likes".equalsIgnoreCase(sortBy)) {
+            likeBuffer.flush();
             films = filmRepository.getDirectorFilmsByLikes(directorId);
         } else if ("year".equalsIgnoreCase(sortBy)) {
             films = filmRepository.getFilmsByDirector(directorId);
@@ -161,32 +304,46 @@ public class FilmServiceImpl implements FilmService {
 
     @Override
     public List<Film> getCommonFilms(int userId, int friendId) {
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        User friend = userRepository.get(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
-        return filmRepository.getCommonFilms(user, friend);
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            scope.check(() -> checkUserExists(userId));
+            scope.check(() -> checkUserExists(friendId));
+            scope.join();
+        }
+        // Пересечение лайков из матрицы в памяти, порядок - по общему числу лайков фильма
+        int[] common = likeMatrix.getCommonFilms(userId, friendId);
+        List<Integer> filmIds = new ArrayList<>(common.length);
+        for (int filmId : common) {
+            filmIds.add(filmId);
+        }
+        filmIds.sort(Comparator.comparingInt((Integer filmId) -> -leaderboard.getLikes(filmId))
+                .thenComparing(Comparator.naturalOrder()));
+        return filmRepository.getByIds(filmIds);
+    }
+
+    private void checkFilmExists(int filmId) {
+        if (!filmRepository.exists(filmId)) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+    }
+
+    private void checkUserExists(int userId) {
+        if (!userRepository.exists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
     }
 
     private void addLikeFeed(Integer userId, Integer filmId, Feed.Operation operation) {
-        feedRepository.create(new Feed(userId, filmId, Feed.EventType.LIKE, operation));
+        feedAppender.append(new Feed(userId, filmId, Feed.EventType.LIKE, operation));
     }
 
     @Override
     public void deleteFilmById(int filmId) {
-        filmRepository.get(filmId)
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + filmId + " не найден"));
-
-        filmRepository.deleteFilmDirectors(filmId);
-        filmRepository.deleteFilmLikes(filmId);
-        filmRepository.deleteFilmGenres(filmId);
-        reviewRepository.deleteFilmReviewLikes(filmId);
-        reviewRepository.deleteFilmReviews(filmId);
-        filmRepository.deleteFilmById(filmId);
+        checkFilmExists(filmId);
+        cascadeDeleter.deleteFilms(List.of(filmId));
     }
 
     @Override
     public List<Film> searchFilms(String query, String by) {
-        return filmRepository.searchFilms(query, by);
+        return filmRepository.getByIds(searchIndex.search(query, by));
     }
 }
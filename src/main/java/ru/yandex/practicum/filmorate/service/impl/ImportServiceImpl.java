@@ -0,0 +1,332 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dal.DirectorRepository;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.MpaRepository;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+// Массовая загрузка из NDJSON или CSV. Поток читается построчно, строки проверяются по мере чтения
+// и пишутся в базу порциями по chunkSize: id порции выделяются одним диапазоном, фильмы, жанры
+// и режиссеры вставляются пакетными запросами. Ошибочные строки пропускаются и попадают в отчет
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportServiceImpl implements ImportService {
+    private static final int MAX_ERRORS = 100;
+    private static final long PROGRESS_EVERY = 100_000;
+
+    @Qualifier("jdbcUserRepository")
+    private final UserRepository userRepository;
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+    private final GenreRepository genreRepository;
+    private final MpaRepository mpaRepository;
+    private final DirectorRepository directorRepository;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+    private final UserValidator userValidator;
+    private final FilmValidator filmValidator;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    @Value("${filmorate.import.chunk-size:1000}")
+    private final int chunkSize;
+
+    @Override
+    public ImportResult importUsers(InputStream in, Format format) {
+        Batch<User> batch = new Batch<>("пользователей", userRepository::createAll,
+                users -> log.debug("Записана порция пользователей: {}", users.size()));
+        read(in, format, batch, objectMapper.readerFor(User.class), this::userFromCsv, this::prepareUser);
+        return batch.result();
+    }
+
+    @Override
+    public ImportResult importFilms(InputStream in, Format format) {
+        References references = new References(
+                toMap(mpaRepository.findAll(), Mpa::getId),
+                toMap(genreRepository.findAll(), Genre::getId),
+                toMap(directorRepository.findAll(), Director::getId));
+        Batch<Film> batch = new Batch<>("фильмов", filmRepository::createAll, films -> films.forEach(film -> {
+            leaderboard.onFilmSaved(film);
+            searchIndex.onFilmSaved(film);
+        }));
+        read(in, format, batch, objectMapper.readerFor(Film.class), this::filmFromCsv,
+                film -> prepareFilm(film, references));
+        return batch.result();
+    }
+
+    // Справочники читаются один раз на загрузку
+    private record References(Map<Integer, Mpa> mpa, Map<Integer, Genre> genres, Map<Integer, Director> directors) {
+    }
+
+    private <T> void read(InputStream in, Format format, Batch<T> batch, ObjectReader jsonReader,
+                          Function<Function<String, String>, T> csvMapper, UnaryOperator<T> prepare) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            if (format == Format.NDJSON) {
+                long lineNumber = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) continue;
+
+                    String json = line;
+                    batch.accept(lineNumber, () -> prepare.apply(jsonReader.readValue(json)));
+                }
+            } else {
+                readCsv(new CsvReader(reader), batch, csvMapper, prepare);
+            }
+            batch.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Первая запись - заголовок с именами полей; порядок колонок произвольный, лишние колонки пропускаются
+    private <T> void readCsv(CsvReader reader, Batch<T> batch,
+                             Function<Function<String, String>, T> csvMapper, UnaryOperator<T> prepare)
+            throws IOException {
+        String[] header = reader.next();
+        if (header == null) return;
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].strip().toLowerCase(Locale.ROOT), i);
+        }
+        String[] fields;
+        while ((fields = reader.next()) != null) {
+            if (fields.length == 1 && fields[0].isBlank()) continue;
+
+            String[] row = fields;
+            Function<String, String> column = name -> {
+                Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+                return index != null && index < row.length && !row[index].isEmpty() ? row[index] : null;
+            };
+            batch.accept(reader.recordLine(), () -> prepare.apply(csvMapper.apply(column)));
+        }
+    }
+
+    private User userFromCsv(Function<String, String> column) {
+        return User.builder()
+                .email(column.apply("email"))
+                .login(column.apply("login"))
+                .name(column.apply("name"))
+                .birthday(parseDate(column.apply("birthday")))
+                .build();
+    }
+
+    // Жанры и режиссеры - id через "|"
+    private Film filmFromCsv(Function<String, String> column) {
+        String duration = column.apply("duration");
+        String mpaId = column.apply("mpa");
+        return Film.builder()
+                .name(column.apply("name"))
+                .description(column.apply("description"))
+                .releaseDate(parseDate(column.apply("releaseDate")))
+                .duration(duration != null ? Integer.parseInt(duration.strip()) : 0)
+                .mpa(mpaId != null ? Mpa.builder().id(Integer.parseInt(mpaId.strip())).build() : null)
+                .genres(parseIds(column.apply("genres"), id -> Genre.builder().id(id).build()))
+                .directors(parseIds(column.apply("directors"), id -> Director.builder().id(id).build()))
+                .build();
+    }
+
+    private User prepareUser(User user) {
+        checkConstraints(user);
+        userValidator.validate(user, false);
+        return User.builder()
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName() == null || user.getName().isBlank() ? user.getLogin() : user.getName())
+                .birthday(user.getBirthday())
+                .build();
+    }
+
+    private Film prepareFilm(Film film, References references) {
+        checkConstraints(film);
+        filmValidator.validate(film, false);
+
+        Mpa mpa = null;
+        if (film.getMpa() != null) {
+            Integer mpaId = film.getMpa().getId();
+            mpa = references.mpa().get(mpaId);
+            if (mpa == null) throw new ValidationException("Рейтинг с id = " + mpaId + " не найден");
+        }
+
+        LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                Genre found = references.genres().get(genre.getId());
+                if (found == null) throw new ValidationException("Жанр с id = " + genre.getId() + " не найден");
+                genres.add(found);
+            }
+        }
+
+        LinkedHashSet<Director> directors = new LinkedHashSet<>();
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                Director found = references.directors().get(director.getId());
+                if (found == null) {
+                    throw new ValidationException("Режиссер с id = " + director.getId() + " не найден");
+                }
+                directors.add(found);
+            }
+        }
+
+        return Film.builder()
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(mpa)
+                .genres(genres)
+                .directors(directors)
+                .build();
+    }
+
+    private <T> void checkConstraints(T item) {
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value != null ? LocalDate.parse(value.strip()) : null;
+    }
+
+    private static <T> Set<T> parseIds(String value, IntFunction<T> mapper) {
+        Set<T> items = new LinkedHashSet<>();
+        if (value == null) return items;
+
+        for (String id : value.split("\\|")) {
+            if (!id.isBlank()) {
+                items.add(mapper.apply(Integer.parseInt(id.strip())));
+            }
+        }
+        return items;
+    }
+
+    private static <T> Map<Integer, T> toMap(List<T> items, Function<T, Integer> id) {
+        return items.stream().collect(Collectors.toMap(id, item -> item));
+    }
+
+    // Накопление порции и счетчики одной загрузки
+    private final class Batch<T> {
+        private final String entity;
+        private final UnaryOperator<List<T>> writer;
+        private final Consumer<List<T>> onWritten;
+        private final long start = System.nanoTime();
+        private final List<String> errors = new ArrayList<>();
+        private List<T> pending = new ArrayList<>(chunkSize);
+        private long imported;
+        private long rejected;
+
+        Batch(String entity, UnaryOperator<List<T>> writer, Consumer<List<T>> onWritten) {
+            this.entity = entity;
+            this.writer = writer;
+            this.onWritten = onWritten;
+        }
+
+        void accept(long lineNumber, Callable<T> parser) {
+            T item;
+            try {
+                item = parser.call();
+            } catch (ValidationException | JsonProcessingException | DateTimeException
+                     | IllegalArgumentException e) {
+                reject(lineNumber, e instanceof JsonProcessingException json ? json.getOriginalMessage()
+                        : e.getMessage());
+                return;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            pending.add(item);
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+
+            onWritten.accept(writer.apply(pending));
+            long before = imported;
+            imported += pending.size();
+            pending = new ArrayList<>(chunkSize);
+            if (imported / PROGRESS_EVERY != before / PROGRESS_EVERY) {
+                log.info("Загрузка {}: записано {}, отклонено {}, {} строк/с",
+                        entity, imported, rejected, rowsPerSecond());
+            }
+        }
+
+        private void reject(long lineNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("строка " + lineNumber + ": " + message);
+            }
+        }
+
+        private long elapsedMs() {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        private long rowsPerSecond() {
+            return (imported + rejected) * 1000 / Math.max(elapsedMs(), 1);
+        }
+
+        ImportResult result() {
+            log.info("Загрузка {} завершена: записано {}, отклонено {} за {} мс",
+                    entity, imported, rejected, elapsedMs());
+            return ImportResult.builder()
+                    .imported(imported)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .elapsedMs(elapsedMs())
+                    .rowsPerSecond(rowsPerSecond())
+                    .build();
+        }
+    }
+}
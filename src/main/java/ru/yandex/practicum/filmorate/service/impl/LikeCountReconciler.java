@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.ReviewRepository;
+
+// Сверяет films.like_count с таблицей likes, reviews.useful с review_likes и исправляет расхождения
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCountReconciler {
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+    private final ReviewRepository reviewRepository;
+    private final LikeWriteBuffer likeBuffer;
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconcile-interval-ms:600000}",
+            fixedDelayString = "${filmorate.likes.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        likeBuffer.flush();
+        int repaired = filmRepository.reconcileLikeCounts();
+        if (repaired > 0) {
+            log.warn("Исправлены счетчики лайков у фильмов: {}", repaired);
+        }
+        int repairedReviews = reviewRepository.reconcileRatings();
+        if (repairedReviews > 0) {
+            log.warn("Исправлены рейтинги отзывов: {}", repairedReviews);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Отложенная запись лайков: операции копятся в памяти по паре (фильм, пользователь),
+// взаимно гасящиеся добавления и удаления не доходят до базы, остальное пишется пачками.
+// При выключенном режиме лайки пишутся в базу сразу
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeWriteBuffer {
+    private static final int PAIR_LOCK_STRIPES = 64;
+
+    @Qualifier("jdbcFilmRepository")
+    private final FilmRepository filmRepository;
+    @Qualifier("jdbcUserRepository")
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${filmorate.likes.write-behind.enabled:false}")
+    private final boolean enabled;
+    @Value("${filmorate.likes.write-behind.max-pending:10000}")
+    private final int maxPending;
+
+    // Операции берут блокировку на чтение, сброс - на запись только на время подмены буферов
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private volatile ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Изменения, которые сейчас записываются в базу
+    private volatile Map<Long, Pending> inFlight = Map.of();
+
+    // Переход пары и обновление индексов выполняются под одной блокировкой,
+    // чтобы индексы видели изменения пары в том же порядке, что и база
+    private final PairLocks pairLocks = new PairLocks(PAIR_LOCK_STRIPES);
+
+    private record Pending(boolean persisted, boolean liked) {
+    }
+
+    // onChanged вызывается, только если лайк действительно изменился
+    public boolean addLike(int filmId, int userId, Runnable onChanged) {
+        return apply(filmId, userId, true, onChanged);
+    }
+
+    public boolean deleteLike(int filmId, int userId, Runnable onChanged) {
+        return apply(filmId, userId, false, onChanged);
+    }
+
+    public int pendingCount() {
+        return pending.size() + inFlight.size();
+    }
+
+    // Вызывается перед запросами, которые читают таблицу likes напрямую
+    public void flush() {
+        if (!enabled) return;
+
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Удаляет из буфера операции над удаленными фильмами и пользователями, чтобы сброс не упал на внешнем ключе.
+    // Возвращает поправки рейтинга по фильмам: буфер уже учтен в рейтинге, а удаление учло только базу
+    public Map<Integer, Integer> discard(Collection<Integer> filmIds, Collection<Integer> userIds) {
+        if (!enabled) return Map.of();
+
+        Set<Integer> films = Set.copyOf(filmIds);
+        Set<Integer> users = Set.copyOf(userIds);
+        Map<Integer, Integer> corrections = new HashMap<>();
+        // Под flushLock буфер сброса пуст, операции остаются только в pending
+        flushLock.lock();
+        swapLock.writeLock().lock();
+        try {
+            pending.entrySet().removeIf(entry -> {
+                int filmId = filmId(entry.getKey());
+                if (!films.contains(filmId) && !users.contains(userId(entry.getKey()))) return false;
+
+                Pending p = entry.getValue();
+                corrections.merge(filmId, (p.persisted() ? 1 : 0) - (p.liked() ? 1 : 0), Integer::sum);
+                return true;
+            });
+        } finally {
+            swapLock.writeLock().unlock();
+            flushLock.unlock();
+        }
+        corrections.values().removeIf(delta -> delta == 0);
+        return corrections;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-interval-ms:1000}")
+    public void flushOnSchedule() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать отложенные лайки", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        log.info("Отложенные лайки записаны перед остановкой");
+    }
+
+    private boolean apply(int filmId, int userId, boolean liked, Runnable onChanged) {
+        return pairLocks.apply(filmId, userId, () -> {
+            if (enabled) return change(filmId, userId, liked);
+            return liked ? filmRepository.addLike(filmId, userId) : filmRepository.deleteLike(filmId, userId);
+        }, onChanged);
+    }
+
+    // Состояние в базе читается вне блокировок и только для пар, которых нет в буферах;
+    // compute лишь объединяет операцию с буфером. Если сброс подменил буфер во время чтения, чтение повторяется
+    private boolean change(int filmId, int userId, boolean liked) {
+        long key = key(filmId, userId);
+        ConcurrentMap<Long, Pending> readFor = null;
+        boolean stored = false;
+        while (true) {
+            Boolean changed = null;
+            int size;
+            swapLock.readLock().lock();
+            try {
+                ConcurrentMap<Long, Pending> current = pending;
+                Boolean persisted = bufferedState(current, key);
+                if (persisted == null && current == readFor) {
+                    persisted = stored;
+                }
+                if (persisted != null) {
+                    changed = merge(current, key, persisted, liked);
+                } else {
+                    readFor = current;
+                }
+                size = current.size();
+            } finally {
+                swapLock.readLock().unlock();
+            }
+
+            if (changed != null) {
+                if (size >= maxPending) {
+                    flushWhenFull();
+                }
+                return changed;
+            }
+            stored = filmRepository.hasLike(filmId, userId);
+        }
+    }
+
+    // Состояние, которое будет в базе после записи буферов; null - пары нет ни в одном буфере
+    private Boolean bufferedState(Map<Long, Pending> current, long key) {
+        Pending buffered = current.get(key);
+        if (buffered != null) return buffered.persisted();
+
+        Pending flushing = inFlight.get(key);
+        return flushing != null ? flushing.liked() : null;
+    }
+
+    private static boolean merge(ConcurrentMap<Long, Pending> current, long key, boolean persisted, boolean liked) {
+        boolean[] changed = new boolean[1];
+        current.compute(key, (k, p) -> {
+            boolean base = p != null ? p.persisted() : persisted;
+            changed[0] = (p != null ? p.liked() : base) != liked;
+            return base == liked ? null : new Pending(base, liked);
+        });
+        return changed[0];
+    }
+
+    // Ошибка сброса не должна проваливать запрос, вызвавший его: изменения уже возвращены в буфер
+    private void flushWhenFull() {
+        if (!flushLock.tryLock()) return;
+
+        try {
+            flushPending();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать отложенные лайки", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        Map<Long, Pending> batch;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) return;
+
+            batch = pending;
+            inFlight = batch;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        Map<Integer, Set<Integer>> added = new HashMap<>();
+        Map<Integer, Set<Integer>> removed = new HashMap<>();
+        batch.forEach((key, p) -> (p.liked() ? added : removed)
+                .computeIfAbsent(filmId(key), id -> new HashSet<>())
+                .add(userId(key)));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                dropMissing(added);
+                filmRepository.addLikes(added);
+                filmRepository.deleteLikes(removed);
+            });
+        } catch (RuntimeException e) {
+            restore(batch);
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            inFlight = Map.of();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.debug("Записаны отложенные лайки: {}", batch.size());
+    }
+
+    // Пара, фильм или пользователь которой удален после постановки в буфер, не должна проваливать всю пачку:
+    // такие добавления отбрасываются, удалять лайк у несуществующей записи и так нечего
+    private void dropMissing(Map<Integer, Set<Integer>> added) {
+        if (added.isEmpty()) return;
+
+        Set<Integer> filmIds = added.keySet();
+        Set<Integer> userIds = new HashSet<>();
+        added.values().forEach(userIds::addAll);
+        boolean filmsExist = filmRepository.existsAll(filmIds);
+        boolean usersExist = userRepository.existsAll(userIds);
+        if (filmsExist && usersExist) return;
+
+        Set<Integer> existingFilms = filmsExist ? filmIds : filmRepository.findExistingIds(filmIds);
+        Set<Integer> existingUsers = usersExist ? userIds : userRepository.findExistingIds(userIds);
+        added.entrySet().removeIf(entry -> {
+            if (!existingFilms.contains(entry.getKey())) {
+                log.warn("Отброшены отложенные лайки удаленного фильма {}: {}", entry.getKey(), entry.getValue());
+                return true;
+            }
+            entry.getValue().removeIf(userId -> {
+                boolean missing = !existingUsers.contains(userId);
+                if (missing) log.warn("Отброшен отложенный лайк удаленного пользователя {} фильму {}", userId,
+                        entry.getKey());
+                return missing;
+            });
+            return entry.getValue().isEmpty();
+        });
+    }
+
+    // Возвращает несохраненные изменения в буфер с учетом операций, пришедших во время сброса
+    private void restore(Map<Long, Pending> batch) {
+        swapLock.writeLock().lock();
+        try {
+            batch.forEach((key, failed) -> {
+                Pending newer = pending.get(key);
+                boolean liked = newer != null ? newer.liked() : failed.liked();
+                if (liked == failed.persisted()) {
+                    pending.remove(key);
+                } else {
+                    pending.put(key, new Pending(failed.persisted(), liked));
+                }
+            });
+            inFlight = Map.of();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private static long key(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
+
+    private static int filmId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int userId(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+// Блокировки по паре id, разбитые на полосы: изменения одной пары выполняются по очереди, разных - параллельно
+final class PairLocks {
+    private final Lock[] stripes;
+
+    PairLocks(int stripeCount) {
+        stripes = IntStream.range(0, Integer.highestOneBit(stripeCount))
+                .mapToObj(i -> new ReentrantLock())
+                .toArray(Lock[]::new);
+    }
+
+    // onChanged вызывается под той же блокировкой, только если change вернул true
+    boolean apply(int first, int second, BooleanSupplier change, Runnable onChanged) {
+        Lock lock = stripes[(31 * first + second) & (stripes.length - 1)];
+        lock.lock();
+        try {
+            boolean changed = change.getAsBoolean();
+            if (changed) {
+                onChanged.run();
+            }
+            return changed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Параллельное выполнение независимых чтений в виртуальных потоках по образцу StructuredTaskScope:
+// fork запускает чтение, join ждет все чтения, close отменяет незавершенные.
+// Ошибки те же, что при последовательном выполнении: join выбрасывает исключение первого по порядку
+// вызова fork упавшего чтения. После ошибки чтения, запущенные позже него, отменяются - их результат
+// уже не нужен. Отмена не прерывает поток: прерывание посреди запроса JDBC закрывает соединение,
+// и пул выбрасывает его. Уже начатое чтение дорабатывает, join его не ждет.
+// Каждое чтение берет свое соединение из пула и выполняется вне транзакции вызывающего
+@Component
+@RequiredArgsConstructor
+public class ParallelLookups {
+    @Value("${filmorate.lookups.parallel:true}")
+    private final boolean parallel;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Scope open() {
+        return new Scope();
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final List<Future<?>> forks = new CopyOnWriteArrayList<>();
+        private final AtomicInteger firstFailed = new AtomicInteger(Integer.MAX_VALUE);
+
+        private Scope() {
+        }
+
+        // Результат доступен после join; в последовательном режиме чтение выполняется сразу
+        public <T> Supplier<T> fork(Supplier<T> lookup) {
+            if (!parallel) {
+                T value = lookup.get();
+                return () -> value;
+            }
+
+            int index = forks.size();
+            Future<T> future = executor.submit(() -> {
+                try {
+                    return lookup.get();
+                } catch (RuntimeException | Error e) {
+                    failed(index);
+                    throw e;
+                }
+            });
+            forks.add(future);
+            if (index > firstFailed.get()) {
+                future.cancel(false);
+            }
+            return future::resultNow;
+        }
+
+        // Проверка без результата, например существования сущности
+        public void check(Runnable check) {
+            fork(() -> {
+                check.run();
+                return null;
+            });
+        }
+
+        public void join() {
+            try {
+                for (int i = 0; i < forks.size() && i <= firstFailed.get(); i++) {
+                    forks.get(i).get();
+                }
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                if (e.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException(e.getCause());
+            } catch (CancellationException e) {
+                close();
+                throw new IllegalStateException("Чтение отменено", e);
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание чтений прервано", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            forks.forEach(future -> future.cancel(false));
+        }
+
+        private void failed(int index) {
+            firstFailed.accumulateAndGet(index, Math::min);
+            for (int i = index + 1; i < forks.size(); i++) {
+                forks.get(i).cancel(false);
+            }
+        }
+    }
+}
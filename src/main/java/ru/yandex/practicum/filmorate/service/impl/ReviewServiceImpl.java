@@ -4,14 +4,12 @@ import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dal.FeedRepository;
 import ru.yandex.practicum.filmorate.dal.FilmRepository;
 import ru.yandex.practicum.filmorate.dal.ReviewRepository;
 import ru.yandex.practicum.filmorate.dal.UserRepository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Review;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 
 import java.util.List;
@@ -24,7 +22,7 @@ public class ReviewServiceImpl implements ReviewService {
     private final FilmRepository filmRepository;
     @Qualifier("jdbcUserRepository")
     private final UserRepository userRepository;
-    private final FeedRepository feedRepository;
+    private final FeedAppender feedAppender;
 
     @Override
     public Review get(int id) {
@@ -33,25 +31,49 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
-    public List<Review> findByFilmId(Integer filmId, int count) {
-        if (filmId == null) {
-            return reviewRepository.findAll(count);
-        } else {
-            filmRepository.get(filmId)
-                    .orElseThrow(() -> new ValidationException("Фильм с id = " + filmId + " не найден"));
-            return reviewRepository.findByFilmId(filmId, count);
+    public List<Review> findByFilmId(Integer filmId, int count, String after) {
+        if (filmId != null && !filmRepository.exists(filmId)) {
+            throw new ValidationException("Фильм с id = " + filmId + " не найден");
         }
+        if (after == null) {
+            return filmId == null ? reviewRepository.findAll(count) : reviewRepository.findByFilmId(filmId, count);
+        }
+
+        // Курсор - рейтинг и id последнего полученного отзыва: "<useful>_<reviewId>"
+        int separator = after.lastIndexOf('_');
+        int afterUseful;
+        int afterReviewId;
+        try {
+            afterUseful = Integer.parseInt(after.substring(0, Math.max(separator, 0)));
+            afterReviewId = Integer.parseInt(after.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Некорректный курсор отзывов: " + after);
+        }
+        return filmId == null
+                ? reviewRepository.findPage(afterUseful, afterReviewId, count)
+                : reviewRepository.findPageByFilmId(filmId, afterUseful, afterReviewId, count);
     }
 
     private void validate(Review review, final boolean checkId) {
         if (checkId) {
-            reviewRepository.get(review.getReviewId())
-                    .orElseThrow(() -> new NotFoundException("Отзыв с id = " + review.getReviewId() + " не найден"));
+            checkReviewExists(review.getReviewId());
+        }
+        if (review.getFilmId() == null || !filmRepository.exists(review.getFilmId())) {
+            throw new NotFoundException("Фильм с id = " + review.getFilmId() + " не найден");
+        }
+        checkUserExists(review.getUserId());
+    }
+
+    private void checkReviewExists(Integer id) {
+        if (id == null || !reviewRepository.exists(id)) {
+            throw new NotFoundException("Отзыв с id = " + id + " не найден");
+        }
+    }
+
+    private void checkUserExists(Integer userId) {
+        if (userId == null || !userRepository.exists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
         }
-        filmRepository.get(review.getFilmId())
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + review.getFilmId() + " не найден"));
-        userRepository.get(review.getUserId())
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + review.getUserId() + " не найден"));
     }
 
     @Override
@@ -81,41 +103,33 @@ public class ReviewServiceImpl implements ReviewService {
 
     @Override
     public void addLike(int id, int userId) {
-        Review review = reviewRepository.get(id)
-                .orElseThrow(() -> new NotFoundException("Отзыв с id = " + id + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        reviewRepository.addLike(review, user);
+        checkReviewExists(id);
+        checkUserExists(userId);
+        reviewRepository.addLike(id, userId);
     }
 
     @Override
     public void addDislike(int id, int userId) {
-        Review review = reviewRepository.get(id)
-                .orElseThrow(() -> new NotFoundException("Отзыв с id = " + id + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        reviewRepository.addDislike(review, user);
+        checkReviewExists(id);
+        checkUserExists(userId);
+        reviewRepository.addDislike(id, userId);
     }
 
     @Override
     public void deleteLike(int id, int userId) {
-        Review review = reviewRepository.get(id)
-                .orElseThrow(() -> new NotFoundException("Отзыв с id = " + id + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        reviewRepository.deleteLike(review, user);
+        checkReviewExists(id);
+        checkUserExists(userId);
+        reviewRepository.deleteLike(id, userId);
     }
 
     @Override
     public void deleteDislike(int id, int userId) {
-        Review review = reviewRepository.get(id)
-                .orElseThrow(() -> new NotFoundException("Отзыв с id = " + id + " не найден"));
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        reviewRepository.deleteDislike(review, user);
+        checkReviewExists(id);
+        checkUserExists(userId);
+        reviewRepository.deleteDislike(id, userId);
     }
 
     private void addReviewFeed(Integer userId, Integer reviewId, Feed.Operation operation) {
-        feedRepository.create(new Feed(userId, reviewId, Feed.EventType.REVIEW, operation));
+        feedAppender.append(new Feed(userId, reviewId, Feed.EventType.REVIEW, operation));
     }
 }
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.model.PurgeTask;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Фоновое массовое удаление пользователей. Задачи выполняются по очереди одним потоком,
+// каждая порция id удаляется отдельной транзакцией. Состояние задачи публикуется новым
+// объектом после каждой порции; хранятся только последние задачи
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserPurger {
+    @Qualifier("jdbcUserRepository")
+    private final UserRepository userRepository;
+    private final CascadeDeleter cascadeDeleter;
+    @Value("${filmorate.users.purge.chunk-size:500}")
+    private final int chunkSize;
+    @Value("${filmorate.users.purge.max-tasks:100}")
+    private final int maxTasks;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private final boolean virtualThreads;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final ConcurrentMap<Integer, PurgeTask> tasks = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(BackgroundThreads.factory("user-purger", virtualThreads));
+    }
+
+    // Удаление прерывается между порциями, уже удаленные порции остаются удаленными
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public PurgeTask submit(List<Integer> userIds) {
+        int taskId = sequence.incrementAndGet();
+        List<Integer> ids = List.copyOf(userIds);
+        PurgeTask task = publish(taskId, PurgeTask.Status.QUEUED, ids.size(), 0, 0, null);
+        tasks.values().removeIf(t -> t.getTaskId() <= taskId - maxTasks
+                && (t.getStatus() == PurgeTask.Status.DONE || t.getStatus() == PurgeTask.Status.FAILED));
+        executor.execute(() -> run(taskId, ids));
+        log.info("Поставлено в очередь удаление пользователей: задача {}, id {}", taskId, ids.size());
+        return task;
+    }
+
+    public Optional<PurgeTask> get(int taskId) {
+        return Optional.ofNullable(tasks.get(taskId));
+    }
+
+    private void run(int taskId, List<Integer> userIds) {
+        long start = System.nanoTime();
+        int processed = 0;
+        int deleted = 0;
+        try {
+            publish(taskId, PurgeTask.Status.RUNNING, userIds.size(), processed, deleted, null);
+            for (int from = 0; from < userIds.size(); from += chunkSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    publish(taskId, PurgeTask.Status.FAILED, userIds.size(), processed, deleted, "Удаление прервано");
+                    return;
+                }
+                List<Integer> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+                Set<Integer> existing = userRepository.findExistingIds(chunk);
+                cascadeDeleter.deleteUsers(existing);
+                processed += chunk.size();
+                deleted += existing.size();
+                publish(taskId, PurgeTask.Status.RUNNING, userIds.size(), processed, deleted, null);
+            }
+            publish(taskId, PurgeTask.Status.DONE, userIds.size(), processed, deleted, null);
+            log.info("Задача удаления пользователей {} выполнена: удалено {} из {} за {} мс",
+                    taskId, deleted, userIds.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Ошибка удаления пользователей в задаче {}", taskId, e);
+            publish(taskId, PurgeTask.Status.FAILED, userIds.size(), processed, deleted, e.getMessage());
+        }
+    }
+
+    private PurgeTask publish(int taskId, PurgeTask.Status status, int requested, int processed, int deleted,
+                              String error) {
+        PurgeTask task = PurgeTask.builder()
+                .taskId(taskId)
+                .status(status)
+                .requested(requested)
+                .processed(processed)
+                .deleted(deleted)
+                .error(error)
+                .build();
+        tasks.put(taskId, task);
+        return task;
+    }
+}
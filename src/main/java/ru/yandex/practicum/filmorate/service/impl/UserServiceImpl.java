@@ -3,29 +3,50 @@ package ru.yandex.practicum.filmorate.service.impl;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dal.FeedRepository;
 import ru.yandex.practicum.filmorate.dal.FilmRepository;
-import ru.yandex.practicum.filmorate.dal.ReviewRepository;
 import ru.yandex.practicum.filmorate.dal.UserRepository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PurgeTask;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDistance;
 import ru.yandex.practicum.filmorate.service.UserService;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int RECOMMENDATION_NEIGHBOURS = 10;
+    private static final int MAX_PURGE_SIZE = 100_000;
+    private static final int FRIEND_LOCK_STRIPES = 64;
+
     @Qualifier("jdbcUserRepository")
     private final UserRepository userRepository;
     private final FeedRepository feedRepository;
-    private final ReviewRepository reviewRepository;
     private final FilmRepository filmRepository;
+    private final FriendGraph friendGraph;
+    private final LikeMatrix likeMatrix;
+    private final MinHashIndex minHashIndex;
+    private final FeedAppender feedAppender;
+    private final CascadeDeleter cascadeDeleter;
+    private final UserPurger userPurger;
+    private final ParallelLookups lookups;
+    @Value("${filmorate.recommendations.mode:EXACT}")
+    private final RecommendationMode defaultRecommendationMode;
+    // Запись дружбы в базу и изменение графа выполняются под одной блокировкой пары,
+    // иначе параллельные добавление и удаление могут применяться к графу в обратном порядке
+    private final PairLocks friendLocks = new PairLocks(FRIEND_LOCK_STRIPES);
 
     @Override
     public User get(int id) {
@@ -38,6 +59,14 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
+    @Override
+    public List<User> findPage(Integer afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userRepository.findPage(afterId != null ? afterId : 0, limit);
+    }
+
     @Override
     public User create(User user) {
         return userRepository.create(user);
@@ -52,11 +81,15 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void addFriend(int userId, int friendId) {
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        User friend = userRepository.get(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
-        userRepository.addFriend(user, friend);
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            Supplier<User> user = scope.fork(() -> get(userId));
+            Supplier<User> friend = scope.fork(() -> get(friendId));
+            scope.join();
+            friendLocks.apply(userId, friendId, () -> {
+                userRepository.addFriend(user.get(), friend.get());
+                return true;
+            }, () -> friendGraph.onFriendAdded(userId, friendId));
+        }
         addFriendFeed(userId, friendId, Feed.Operation.ADD);
     }
 
@@ -66,69 +99,126 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
         User friend = userRepository.get(friendId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
-        userRepository.deleteFriend(user, friend);
+        friendLocks.apply(userId, friendId, () -> {
+            userRepository.deleteFriend(user, friend);
+            return true;
+        }, () -> friendGraph.onFriendDeleted(userId, friendId));
         addFriendFeed(userId, friendId, Feed.Operation.REMOVE);
     }
 
     @Override
     public List<User> getFriends(int userId) {
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        return userRepository.getFriends(user);
+        checkUserExists(userId);
+        return userRepository.getByIds(toList(friendGraph.getFriends(userId)));
     }
 
     @Override
     public List<User> getMutualFriends(int userId, int otherId) {
-        User user = userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        User other = userRepository.get(otherId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + otherId + " не найден"));
-        return userRepository.getMutualFriends(user, other);
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            scope.check(() -> checkUserExists(userId));
+            scope.check(() -> checkUserExists(otherId));
+            scope.join();
+        }
+        return userRepository.getByIds(toList(friendGraph.getMutualFriends(userId, otherId)));
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(int userId, int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество рекомендуемых друзей должно быть положительным");
+        }
+        checkUserExists(userId);
+        return userRepository.getByIds(toList(friendGraph.suggestFriends(userId, count)));
+    }
+
+    @Override
+    public UserDistance getDistance(int userId, int otherId) {
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        return friendGraph.distance(userId, otherId);
+    }
+
+    private void checkUserExists(int userId) {
+        if (!userRepository.exists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
     }
 
     @Override
     public List<Feed> getFeed(int userId) {
         User user = userRepository.get(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+        feedAppender.beforeRead(user.getId());
         return feedRepository.findFeedByUserId(user.getId());
     }
 
+    @Override
+    public List<Feed> getFeedPage(int userId, Integer afterEventId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        if (!userRepository.exists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        feedAppender.beforeRead(userId);
+        return feedRepository.findFeedPage(userId, afterEventId != null ? afterEventId : 0, limit);
+    }
+
     private void addFriendFeed(Integer userId, Integer friendId, Feed.Operation operation) {
-        feedRepository.create(new Feed(userId, friendId, Feed.EventType.FRIEND, operation));
+        feedAppender.append(new Feed(userId, friendId, Feed.EventType.FRIEND, operation));
     }
 
     @Override
     public void deleteUserById(int userId) {
-        userRepository.get(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+        checkUserExists(userId);
+        cascadeDeleter.deleteUsers(List.of(userId));
+    }
 
-        userRepository.deleteUserLikes(userId);
-        feedRepository.deleteUserFeed(userId);
-        userRepository.deleteUserFriends(userId);
-        reviewRepository.deleteUserReviewLikes(userId);
-        reviewRepository.deleteUserReviews(userId);
-        List<Integer> ids = reviewRepository.findUserReviewLikes(userId);
-        reviewRepository.deleteReviewLikesByUser(userId);
-        reviewRepository.refreshRatings(ids);
-        userRepository.deleteUserById(userId);
+    @Override
+    public PurgeTask purgeUsers(List<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_PURGE_SIZE) {
+            throw new ValidationException("Число удаляемых пользователей должно быть от 1 до " + MAX_PURGE_SIZE);
+        }
+        if (userIds.contains(null)) {
+            throw new ValidationException("Идентификаторы удаляемых пользователей не должны быть пустыми");
+        }
+        return userPurger.submit(userIds);
     }
 
     @Override
-    public List<Film> getRecommendedFilms(int userId) {
+    public PurgeTask getPurgeTask(int taskId) {
+        return userPurger.get(taskId)
+                .orElseThrow(() -> new NotFoundException("Задача удаления с id = " + taskId + " не найдена"));
+    }
+
+    @Override
+    public List<Film> getRecommendedFilms(int userId, String mode) {
         if (userId < 1) {
             throw new ValidationException("Идентификатор пользователя должен быть целым и положительным числом");
         }
-        // Фильмы, которые поставили лайк пользователь X, делавший запрос
-        Set<Integer> filmsIdsLikedByUser = filmRepository.getFilmsLikedByUser(userId);
-
-        // Пользователи, которые поставили лайк те же самые фильмы, что и пользователь X
-        Set<Integer> usersIdsThatLikedSameFilms = userRepository.getUsersWithSameLikes(filmsIdsLikedByUser);
-
-        Set<Film> foundUsersAllLikedFilms = new HashSet<>(filmRepository.getLikedFilmsByUsersIds(usersIdsThatLikedSameFilms));
+        // Соседи и оценки фильмов считаются по матрице лайков в памяти, из базы загружаются только рекомендации
+        int[] neighbours = switch (parseRecommendationMode(mode)) {
+            case EXACT -> likeMatrix.neighbours(userId, RECOMMENDATION_NEIGHBOURS);
+            case APPROXIMATE -> minHashIndex.neighbours(userId, RECOMMENDATION_NEIGHBOURS);
+        };
+        return filmRepository.getByIds(likeMatrix.recommend(userId, neighbours));
+    }
 
-        return foundUsersAllLikedFilms.stream()
-                .filter(film -> !filmsIdsLikedByUser.contains(film.getId()))
-                .toList();
+    private RecommendationMode parseRecommendationMode(String mode) {
+        if (mode == null) return defaultRecommendationMode;
 
+        try {
+            return RecommendationMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестный режим рекомендаций: " + mode);
+        }
     }
 }
@@ -10,17 +10,20 @@ CREATE TABLE IF NOT EXISTS mpa (
 );
 
 CREATE TABLE IF NOT EXISTS films (
-  film_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  film_id integer PRIMARY KEY,
   name varchar(255) NOT NULL,
   description varchar(200),
   release_date date,
   duration integer,
   mpa_id integer,
+  like_count integer NOT NULL DEFAULT 0,
   CONSTRAINT fk_mpa_films FOREIGN KEY (mpa_id) REFERENCES mpa (mpa_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS users (
-  user_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  user_id integer PRIMARY KEY,
   email varchar(255) NOT NULL,
   login varchar(255) NOT NULL,
   user_name varchar(255) NOT NULL,
@@ -43,6 +46,8 @@ CREATE TABLE IF NOT EXISTS friends (
   CONSTRAINT fk_friend_friends FOREIGN KEY (friend_id) REFERENCES users (user_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_friends_friend ON friends (friend_id);
+
 CREATE TABLE IF NOT EXISTS likes (
   film_id integer,
   user_id integer,
@@ -51,8 +56,10 @@ CREATE TABLE IF NOT EXISTS likes (
   CONSTRAINT fk_user_likes FOREIGN KEY (user_id) REFERENCES users (user_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_likes_user ON likes (user_id, film_id);
+
 CREATE TABLE IF NOT EXISTS directors (
-  director_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  director_id integer PRIMARY KEY,
   name varchar(100) NOT NULL
 );
 
@@ -65,7 +72,7 @@ CREATE TABLE IF NOT EXISTS film_directors (
 );
 
 CREATE TABLE IF NOT EXISTS reviews (
-  review_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  review_id integer PRIMARY KEY,
   content varchar(512) NOT NULL,
   is_positive bool NOT NULL,
   film_id integer NOT NULL,
@@ -75,6 +82,10 @@ CREATE TABLE IF NOT EXISTS reviews (
   CONSTRAINT fk_film_reviews FOREIGN KEY (film_id) REFERENCES films (film_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_reviews_film_useful ON reviews (film_id, useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS idx_reviews_useful ON reviews (useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS idx_reviews_user ON reviews (user_id);
+
 CREATE TABLE IF NOT EXISTS review_likes (
   review_id integer,
   user_id integer,
@@ -84,8 +95,10 @@ CREATE TABLE IF NOT EXISTS review_likes (
   CONSTRAINT fk_user_review_likes FOREIGN KEY (user_id) REFERENCES users (user_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_review_likes_user ON review_likes (user_id);
+
 CREATE TABLE IF NOT EXISTS feed (
-  event_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  event_id integer PRIMARY KEY,
   user_id integer NOT NULL,
   entity_id integer NOT NULL,
   timestamp timestamp NOT NULL,
@@ -93,3 +106,10 @@ CREATE TABLE IF NOT EXISTS feed (
   operation varchar(10) NOT NULL,
   CONSTRAINT fk_user_feed FOREIGN KEY (user_id) REFERENCES users (user_id)
 );
+
+CREATE INDEX IF NOT EXISTS idx_feed_user_event ON feed (user_id, event_id);
+
+CREATE TABLE IF NOT EXISTS id_blocks (
+  name varchar(50) PRIMARY KEY,
+  next_id integer NOT NULL
+);
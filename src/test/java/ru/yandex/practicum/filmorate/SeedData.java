@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.util.stream.IntStream;
+
+// Пакетное заполнение базы для тестов и бенчмарков: id задаются явно, начиная с firstId,
+// и не пересекаются с тестовыми данными из test-data.sql
+public final class SeedData {
+    private SeedData() {
+    }
+
+    public static void seedUsers(NamedParameterJdbcOperations jdbc, int firstId, int count) {
+        jdbc.batchUpdate("INSERT INTO users (user_id, email, login, user_name) VALUES(:id, :email, :login, :login)",
+                IntStream.range(firstId, firstId + count)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id)
+                                .addValue("email", "user" + id + "@yandex.ru")
+                                .addValue("login", "user" + id))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+
+    public static void seedFilms(NamedParameterJdbcOperations jdbc, int firstId, int count) {
+        jdbc.batchUpdate("""
+                        INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                        VALUES(:id, :name, 'Описание', DATE '2000-01-01', 90, 1)""",
+                IntStream.range(firstId, firstId + count)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id)
+                                .addValue("name", "Фильм " + id))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+}
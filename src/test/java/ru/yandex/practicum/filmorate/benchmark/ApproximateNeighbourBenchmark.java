@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.FilmRepository;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.index.SortedIntArrays;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Бенчмарк приближенного поиска соседей")
+class ApproximateNeighbourBenchmark {
+    private static final long SEED = 20241016L;
+    // Пользователи разбиты на сообщества со своим набором фильмов, остальные лайки - популярным фильмам
+    private static final int USERS = 50_000;
+    private static final int COMMUNITIES = 500;
+    private static final int COMMUNITY_FILMS = 60;
+    private static final int COMMUNITY_LIKES = 32;
+    private static final int POPULAR_FILMS = 2000;
+    private static final int POPULAR_LIKES = 8;
+    private static final int NEIGHBOURS = 10;
+    private static final int SAMPLE = 500;
+    private static final int[][] CONFIGS = {{16, 4}, {32, 2}, {64, 1}};
+
+    private static LikeMatrix likeMatrix;
+    private static int[] sample;
+
+    @BeforeAll
+    static void seed() {
+        Random random = new Random(SEED);
+        int[][] likes = new int[USERS + 1][];
+        long total = 0;
+        for (int userId = 1; userId <= USERS; userId++) {
+            int community = userId % COMMUNITIES;
+            Set<Integer> liked = new HashSet<>();
+            while (liked.size() < COMMUNITY_LIKES) {
+                liked.add(1 + community * COMMUNITY_FILMS + random.nextInt(COMMUNITY_FILMS));
+            }
+            while (liked.size() < COMMUNITY_LIKES + POPULAR_LIKES) {
+                double r = random.nextDouble();
+                liked.add(1 + COMMUNITIES * COMMUNITY_FILMS + (int) (r * r * POPULAR_FILMS));
+            }
+            likes[userId] = liked.stream().mapToInt(Integer::intValue).toArray();
+            total += likes[userId].length;
+        }
+
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Integer> consumer = invocation.getArgument(0);
+            for (int userId = 1; userId <= USERS; userId++) {
+                for (int filmId : likes[userId]) {
+                    consumer.accept(filmId, userId);
+                }
+            }
+            return null;
+        }).when(filmRepository).exportLikes(any());
+        likeMatrix = new LikeMatrix(filmRepository);
+        likeMatrix.rebuild();
+
+        sample = random.ints(SAMPLE, 1, USERS + 1).toArray();
+        log.info("Синтетический набор: пользователей {}, лайков {}", USERS, total);
+    }
+
+    @Test
+    @DisplayName("GET /users/{id}/recommendations: полнота и задержка EXACT против APPROXIMATE")
+    void compareRecallAndLatency() {
+        int[][] exact = new int[SAMPLE][];
+        double exactUs = measure(i -> exact[i] = likeMatrix.neighbours(sample[i], NEIGHBOURS));
+        log.info("EXACT: {} мкс на запрос", String.format("%.1f", exactUs));
+
+        double defaultRecall = 0;
+        for (int[] config : CONFIGS) {
+            MinHashIndex index = new MinHashIndex(likeMatrix, config[0], config[1]);
+            long start = System.nanoTime();
+            index.rebuild();
+            double buildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+            int[][] approximate = new int[SAMPLE][];
+            double approximateUs = measure(i -> approximate[i] = index.neighbours(sample[i], NEIGHBOURS));
+            double recall = recall(exact, approximate);
+            log.info("APPROXIMATE {}x{}: построение {} мс, {} мкс на запрос, полнота {}", config[0], config[1],
+                    String.format("%.0f", buildMs), String.format("%.1f", approximateUs),
+                    String.format("%.3f", recall));
+            if (config[0] == 32) {
+                defaultRecall = recall;
+            }
+        }
+
+        assertThat(defaultRecall).isGreaterThan(0.9);
+    }
+
+    // Доля точных соседей, найденных приближенно. Сосед с тем же числом общих лайков,
+    // что и последний точный, считается найденным: порядок равных соседей произволен
+    private static double recall(int[][] exact, int[][] approximate) {
+        long found = 0;
+        long expected = 0;
+        for (int i = 0; i < SAMPLE; i++) {
+            int[] liked = likeMatrix.getLikedFilms(sample[i]);
+            expected += exact[i].length;
+            if (exact[i].length == 0) continue;
+
+            int threshold = SortedIntArrays.intersectionSize(liked,
+                    likeMatrix.getLikedFilms(exact[i][exact[i].length - 1]));
+            for (int neighbourId : approximate[i]) {
+                if (SortedIntArrays.intersectionSize(liked, likeMatrix.getLikedFilms(neighbourId)) >= threshold) {
+                    found++;
+                }
+            }
+        }
+        return expected == 0 ? 1 : (double) Math.min(found, expected) / expected;
+    }
+
+    private static double measure(IntFunction<int[]> action) {
+        for (int i = 0; i < SAMPLE; i++) {
+            action.apply(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLE; i++) {
+            action.apply(i);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / SAMPLE;
+    }
+}
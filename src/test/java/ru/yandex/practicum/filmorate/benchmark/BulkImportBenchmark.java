@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.impl.FilmValidator;
+import ru.yandex.practicum.filmorate.service.impl.ImportServiceImpl;
+import ru.yandex.practicum.filmorate.service.impl.UserValidator;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({ImportServiceImpl.class, JdbcUserRepository.class, JdbcFilmRepository.class, JdbcGenreRepository.class,
+        JdbcMpaRepository.class, JdbcDirectorRepository.class, JdbcIdAllocator.class, FilmLeaderboard.class,
+        FilmSearchIndex.class, UserValidator.class, FilmValidator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк массовой загрузки")
+class BulkImportBenchmark {
+    private static final long SEED = 20241022L;
+    private static final int ROWS = 50_000;
+    private static final int SINGLE_ROWS = 2000;
+
+    private final ImportService importService;
+    private final JdbcFilmRepository filmRepository;
+    private final JdbcGenreRepository genreRepository;
+    private final JdbcMpaRepository mpaRepository;
+
+    @Test
+    @DisplayName("POST /films по одному против /films/import и /users/import")
+    void compareSingleAndImport() {
+        Random random = new Random(SEED);
+
+        // Путь POST /films: проверка справочников и вставка фильма с жанрами отдельными запросами
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_ROWS; i++) {
+            int[] genreIds = randomGenres(random);
+            Film film = Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание " + i)
+                    .releaseDate(LocalDate.of(1950 + random.nextInt(70), 1, 1))
+                    .duration(60 + random.nextInt(120))
+                    .mpa(mpaRepository.get(1 + random.nextInt(5)).orElseThrow())
+                    .genres(new LinkedHashSet<>(genreRepository.getByIds(Arrays.stream(genreIds).boxed().toList())))
+                    .directors(new LinkedHashSet<>())
+                    .build();
+            filmRepository.create(film);
+        }
+        double singleRate = SINGLE_ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        StringBuilder films = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            StringBuilder genres = new StringBuilder();
+            for (int genreId : randomGenres(random)) {
+                genres.append(genres.isEmpty() ? "" : ", ").append("{\"id\": ").append(genreId).append('}');
+            }
+            films.append("{\"name\": \"Загрузка ").append(i)
+                    .append("\", \"description\": \"Описание ").append(i)
+                    .append("\", \"releaseDate\": \"").append(1950 + random.nextInt(70))
+                    .append("-01-01\", \"duration\": ").append(60 + random.nextInt(120))
+                    .append(", \"mpa\": {\"id\": ").append(1 + random.nextInt(5))
+                    .append("}, \"genres\": [").append(genres).append("]}\n");
+        }
+        ImportResult filmResult = importService.importFilms(
+                new ByteArrayInputStream(films.toString().getBytes(StandardCharsets.UTF_8)),
+                ImportService.Format.NDJSON);
+
+        StringBuilder users = new StringBuilder("email,login,name,birthday\n");
+        for (int i = 0; i < ROWS; i++) {
+            users.append("import").append(i).append("@yandex.ru,import").append(i)
+                    .append(",\"Пользователь, ").append(i).append("\",")
+                    .append(1950 + random.nextInt(60)).append("-06-15\n");
+        }
+        ImportResult userResult = importService.importUsers(
+                new ByteArrayInputStream(users.toString().getBytes(StandardCharsets.UTF_8)),
+                ImportService.Format.CSV);
+
+        log.info("Фильмы по одному: {} строк/с; /films/import NDJSON: {} строк/с; /users/import CSV: {} строк/с",
+                String.format("%.0f", singleRate), filmResult.getRowsPerSecond(), userResult.getRowsPerSecond());
+
+        assertThat(filmResult.getImported()).isEqualTo(ROWS);
+        assertThat(userResult.getImported()).isEqualTo(ROWS);
+        assertThat(filmRepository.findAll())
+                .hasSize(3 + SINGLE_ROWS + ROWS);
+    }
+
+    private static int[] randomGenres(Random random) {
+        return random.ints(1 + random.nextInt(3), 1, 7).distinct().toArray();
+    }
+}
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcCascadeRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFeedRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.model.PurgeTask;
+import ru.yandex.practicum.filmorate.service.impl.CascadeDeleter;
+import ru.yandex.practicum.filmorate.service.impl.FeedAppender;
+import ru.yandex.practicum.filmorate.service.impl.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.impl.UserPurger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+// Фоновая задача удаления работает в своем потоке, поэтому данные фиксируются без транзакции теста
+@JdbcTest(properties = "filmorate.users.purge.chunk-size=500")
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcUserRepository.class, JdbcGenreRepository.class,
+        JdbcMpaRepository.class, JdbcFeedRepository.class, JdbcDirectorRepository.class, JdbcReviewRepository.class,
+        JdbcCascadeRepository.class, FilmLeaderboard.class, FilmSearchIndex.class, FilmSimilarityIndex.class,
+        FriendGraph.class, LikeMatrix.class, MinHashIndex.class, LikeWriteBuffer.class, FeedAppender.class,
+        CascadeDeleter.class, UserPurger.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк каскадного удаления пользователей")
+class CascadeDeleteBenchmark {
+    private static final long SEED = 20241021L;
+    private static final int FIRST_ID = 10_001;
+    private static final int FILMS = 200;
+    private static final int USERS = 5000;
+    private static final int LIKES_PER_USER = 10;
+    private static final int FRIENDS_PER_USER = 5;
+    private static final int REVIEWS = 1000;
+    private static final int VOTES = 5000;
+    private static final int SINGLE_DELETES = 200;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcReviewRepository reviewRepository;
+    private final CascadeDeleter cascadeDeleter;
+    private final UserPurger userPurger;
+    private final FilmLeaderboard leaderboard;
+    private final LikeMatrix likeMatrix;
+    private final MinHashIndex minHashIndex;
+    private final FriendGraph friendGraph;
+
+    @Test
+    @DisplayName("DELETE /users/{id} по одному против POST /users/purge")
+    void compareSingleAndPurge() throws InterruptedException {
+        seed();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_DELETES; i++) {
+            cascadeDeleter.deleteUsers(List.of(FIRST_ID + i));
+        }
+        double singleUs = (System.nanoTime() - start) / 1_000.0 / SINGLE_DELETES;
+
+        List<Integer> purged = IntStream.range(FIRST_ID + SINGLE_DELETES, FIRST_ID + USERS).boxed().toList();
+        start = System.nanoTime();
+        PurgeTask task = userPurger.submit(purged);
+        while (task.getStatus() == PurgeTask.Status.QUEUED || task.getStatus() == PurgeTask.Status.RUNNING) {
+            Thread.sleep(5);
+            task = userPurger.get(task.getTaskId()).orElseThrow();
+        }
+        double purgeSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        log.info("Удаление по одному: {} мкс на пользователя; массовое: {} пользователей/с ({} мкс на пользователя)",
+                String.format("%.0f", singleUs), String.format("%.0f", purged.size() / purgeSeconds),
+                String.format("%.0f", purgeSeconds * 1_000_000 / purged.size()));
+
+        assertThat(task.getStatus()).isEqualTo(PurgeTask.Status.DONE);
+        assertThat(task.getDeleted()).isEqualTo(purged.size());
+        assertThat(count("SELECT COUNT(*) FROM users WHERE user_id >= " + FIRST_ID)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM likes WHERE user_id >= " + FIRST_ID)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM review_likes WHERE user_id >= " + FIRST_ID)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM reviews WHERE user_id >= " + FIRST_ID)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM films WHERE like_count <> 0 AND film_id >= " + FIRST_ID)).isZero();
+        assertThat(leaderboard.getLikes(FIRST_ID)).isZero();
+
+        cascadeDeleter.deleteFilms(IntStream.range(FIRST_ID, FIRST_ID + FILMS).boxed().toList());
+    }
+
+    private void seed() {
+        Random random = new Random(SEED);
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+
+        List<MapSqlParameterSource> likes = new ArrayList<>();
+        List<MapSqlParameterSource> friends = new ArrayList<>();
+        for (int userId = FIRST_ID; userId < FIRST_ID + USERS; userId++) {
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                likes.add(new MapSqlParameterSource("film_id", FIRST_ID + random.nextInt(FILMS))
+                        .addValue("user_id", userId));
+            }
+            for (int i = 0; i < FRIENDS_PER_USER; i++) {
+                friends.add(new MapSqlParameterSource("user_id", userId)
+                        .addValue("friend_id", FIRST_ID + random.nextInt(USERS)));
+            }
+        }
+        jdbc.batchUpdate("MERGE INTO likes (film_id, user_id) VALUES(:film_id, :user_id)",
+                likes.toArray(MapSqlParameterSource[]::new));
+        jdbc.batchUpdate("MERGE INTO friends (user_id, friend_id) VALUES(:user_id, :friend_id)",
+                friends.toArray(MapSqlParameterSource[]::new));
+        jdbc.update("""
+                UPDATE films f
+                SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)""",
+                new MapSqlParameterSource());
+
+        jdbc.batchUpdate("""
+                        INSERT INTO reviews (review_id, content, is_positive, film_id, user_id)
+                        VALUES(:id, 'Отзыв', TRUE, :film_id, :user_id)""",
+                IntStream.range(0, REVIEWS)
+                        .mapToObj(i -> new MapSqlParameterSource("id", FIRST_ID + i)
+                                .addValue("film_id", FIRST_ID + random.nextInt(FILMS))
+                                .addValue("user_id", FIRST_ID + random.nextInt(USERS)))
+                        .toArray(MapSqlParameterSource[]::new));
+        List<Integer> reviewIds = jdbc.queryForList("SELECT review_id FROM reviews WHERE user_id >= :id",
+                new MapSqlParameterSource("id", FIRST_ID), Integer.class);
+        for (int i = 0; i < VOTES; i++) {
+            int reviewId = reviewIds.get(random.nextInt(reviewIds.size()));
+            int userId = FIRST_ID + random.nextInt(USERS);
+            if (random.nextBoolean()) {
+                reviewRepository.addLike(reviewId, userId);
+            } else {
+                reviewRepository.addDislike(reviewId, userId);
+            }
+        }
+
+        leaderboard.rebuild();
+        likeMatrix.rebuild();
+        minHashIndex.rebuild();
+        friendGraph.rebuild();
+        log.info("Синтетический набор: пользователей {}, лайков {}, дружб {}, отзывов {}, оценок {}",
+                USERS, likes.size(), friends.size(), REVIEWS, VOTES);
+    }
+
+    private int count(String sql) {
+        return jdbc.queryForObject(sql, new MapSqlParameterSource(), Integer.class);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк общих фильмов")
+class CommonFilmsBenchmark {
+    private static final int FIRST_ID = 1001;
+    private static final int FILMS = 5000;
+    private static final int USERS = 500;
+    private static final int[] LIKES_PER_USER = {50, 500, 2000};
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    // Прежний запрос: самосоединение likes для двух пользователей
+    private static final String COMMON_QUERY = """
+            SELECT l.film_id
+            FROM likes l
+            JOIN likes lk ON l.film_id = lk.film_id AND lk.user_id = :friend_id
+            WHERE l.user_id = :user_id
+            ORDER BY l.film_id""";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final LikeMatrix likeMatrix;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+    }
+
+    @Test
+    @DisplayName("GET /films/common: самосоединение likes против пересечения в памяти")
+    void compareCommonFilms() {
+        int userId = FIRST_ID;
+        int friendId = FIRST_ID + 1;
+        int seeded = 0;
+        for (int likes : LIKES_PER_USER) {
+            seedLikes(seeded, likes);
+            seeded = likes;
+            likeMatrix.rebuild();
+
+            List<Integer> expected = jdbc.queryForList(COMMON_QUERY, params(userId, friendId), Integer.class);
+            assertThat(Arrays.stream(likeMatrix.getCommonFilms(userId, friendId)).boxed().toList())
+                    .isEqualTo(expected);
+
+            double sqlUs = measure(() -> jdbc.queryForList(COMMON_QUERY, params(userId, friendId), Integer.class));
+            double matrixUs = measure(() -> Arrays.stream(likeMatrix.getCommonFilms(userId, friendId)).boxed().toList());
+            log.info("Лайков у пользователя: {}, всего лайков: {}; SQL: {} мкс, матрица: {} мкс", likes,
+                    likes * USERS, String.format("%.1f", sqlUs), String.format("%.1f", matrixUs));
+        }
+    }
+
+    // Каждый пользователь получает лайки фильмов с номерами от from до to по своему шагу
+    private void seedLikes(int from, int to) {
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        for (int userId = FIRST_ID; userId < FIRST_ID + USERS; userId++) {
+            int step = 1 + (userId - FIRST_ID) % 2;
+            for (int i = from; i < to; i++) {
+                rows.add(new MapSqlParameterSource("film_id", FIRST_ID + (i * step + userId) % FILMS)
+                        .addValue("user_id", userId));
+            }
+        }
+        jdbc.batchUpdate("MERGE INTO likes (film_id, user_id) KEY (film_id, user_id) VALUES(:film_id, :user_id)",
+                rows.toArray(MapSqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource params(int userId, int friendId) {
+        return new MapSqlParameterSource("user_id", userId).addValue("friend_id", friendId);
+    }
+
+    private static double measure(Supplier<List<Integer>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFeedRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFeedRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк опроса ленты событий")
+class FeedPollBenchmark {
+    private static final int FIRST_USER_ID = 1001;
+    private static final int[] HISTORY = {1_000, 10_000, 100_000};
+    private static final int NEW_EVENTS = 20;
+    private static final int LIMIT = 100;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcFeedRepository feedRepository;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_USER_ID, HISTORY.length);
+        // События пользователей перемешаны, как в общей таблице
+        List<Feed> events = new ArrayList<>();
+        for (int i = 0; i < HISTORY[HISTORY.length - 1]; i++) {
+            for (int u = 0; u < HISTORY.length; u++) {
+                if (i < HISTORY[u]) {
+                    events.add(new Feed(FIRST_USER_ID + u, i, Feed.EventType.LIKE, Feed.Operation.ADD));
+                }
+            }
+        }
+        feedRepository.createAll(events);
+    }
+
+    @Test
+    @DisplayName("Опрос новых событий против полной истории")
+    void comparePollCost() {
+        double[] pollMs = new double[HISTORY.length];
+        for (int u = 0; u < HISTORY.length; u++) {
+            int userId = FIRST_USER_ID + u;
+            int after = jdbc.queryForObject("""
+                            SELECT event_id FROM feed WHERE user_id = :user_id
+                            ORDER BY event_id DESC LIMIT 1 OFFSET :offset""",
+                    new MapSqlParameterSource("user_id", userId).addValue("offset", NEW_EVENTS),
+                    Integer.class);
+
+            pollMs[u] = measure(() -> feedRepository.findFeedPage(userId, after, LIMIT));
+            double fullMs = measure(() -> feedRepository.findFeedByUserId(userId));
+            log.info("История {} событий: опрос после курсора {} мс, полная лента {} мс",
+                    HISTORY[u], String.format("%.3f", pollMs[u]), String.format("%.3f", fullMs));
+
+            assertThat(feedRepository.findFeedPage(userId, after, LIMIT)).hasSize(NEW_EVENTS);
+        }
+    }
+
+    private static double measure(Supplier<List<Feed>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcGenreRepository.class, JdbcMpaRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк загрузки жанров и режиссеров фильмов")
+class FilmHydrationBenchmark {
+    private static final int FILMS = 5000;
+    private static final int FIRST_ID = 1001;
+    private static final int GENRES_PER_FILM = 4;
+    private static final int DIRECTORS = 20;
+    private static final int DIRECTORS_PER_FILM = 3;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 20;
+
+    private static final String JOIN_ROWS_QUERY = """
+            SELECT COUNT(*)
+            FROM films f
+            LEFT JOIN film_genres fg ON f.film_id = fg.film_id
+            LEFT JOIN film_directors fd ON f.film_id = fd.film_id""";
+    private static final String BATCH_ROWS_QUERY = """
+            SELECT (SELECT COUNT(*) FROM films)
+                + (SELECT COUNT(*) FROM film_genres)
+                + (SELECT COUNT(*) FROM film_directors)""";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcIdAllocator idAllocator;
+    private final JdbcGenreRepository genreRepository;
+    private final JdbcMpaRepository mpaRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbc.batchUpdate("INSERT INTO directors (director_id, name) VALUES(:id, :name)",
+                IntStream.range(FIRST_ID, FIRST_ID + DIRECTORS)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id)
+                                .addValue("name", "Режиссер " + id))
+                        .toArray(MapSqlParameterSource[]::new));
+        jdbc.batchUpdate("""
+                        INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                        VALUES(:id, :name, :desc, :rel_date, 90, 1)""",
+                IntStream.range(FIRST_ID, FIRST_ID + FILMS)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id)
+                                .addValue("name", "Фильм " + id)
+                                .addValue("desc", "Описание фильма " + id)
+                                .addValue("rel_date", Date.valueOf(LocalDate.of(2000, 1, 1).plusDays(id))))
+                        .toArray(MapSqlParameterSource[]::new));
+
+        List<MapSqlParameterSource> genres = new ArrayList<>();
+        List<MapSqlParameterSource> directors = new ArrayList<>();
+        for (int id = FIRST_ID; id < FIRST_ID + FILMS; id++) {
+            for (int i = 0; i < GENRES_PER_FILM; i++) {
+                genres.add(new MapSqlParameterSource("film_id", id)
+                        .addValue("genre_id", (id + i) % 6 + 1));
+            }
+            for (int i = 0; i < DIRECTORS_PER_FILM; i++) {
+                directors.add(new MapSqlParameterSource("film_id", id)
+                        .addValue("director_id", FIRST_ID + (id + i) % DIRECTORS));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES(:film_id, :genre_id)",
+                genres.toArray(MapSqlParameterSource[]::new));
+        jdbc.batchUpdate("INSERT INTO film_directors (film_id, director_id) VALUES(:film_id, :director_id)",
+                directors.toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Test
+    @DisplayName("findAll: JOIN против BATCH")
+    void compareFindAll() {
+        JdbcFilmRepository joinRepository = new JdbcFilmRepository(jdbc, idAllocator, genreRepository, mpaRepository,
+                JdbcFilmRepository.Hydration.JOIN);
+        JdbcFilmRepository batchRepository = new JdbcFilmRepository(jdbc, idAllocator, genreRepository, mpaRepository,
+                JdbcFilmRepository.Hydration.BATCH);
+
+        Long joinRows = jdbc.queryForObject(JOIN_ROWS_QUERY, new MapSqlParameterSource(), Long.class);
+        Long batchRows = jdbc.queryForObject(BATCH_ROWS_QUERY, new MapSqlParameterSource(), Long.class);
+        double joinMs = measure(joinRepository::findAll);
+        double batchMs = measure(batchRepository::findAll);
+
+        log.info("findAll, фильмов: {}; JOIN: строк {}, {} мс; BATCH: строк {}, {} мс",
+                FILMS, joinRows, String.format("%.2f", joinMs), batchRows, String.format("%.2f", batchMs));
+
+        assertThat(batchRepository.findAll())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(joinRepository.findAll());
+        assertThat(batchRows).isLessThan(joinRows);
+    }
+
+    private static double measure(Supplier<List<Film>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.UserRepository;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.UserDistance;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Бенчмарк поиска по графу дружбы")
+class FriendGraphBenchmark {
+    private static final long SEED = 20241020L;
+    // Степенной граф: число друзей пользователя и популярность пользователя как друга
+    // распределены по закону Парето, небольшое число пользователей есть в друзьях у многих
+    private static final int USERS = 1_000_000;
+    private static final double DEGREE_ALPHA = 2.2;
+    private static final int MAX_DEGREE = 2000;
+    private static final double POPULARITY_SKEW = 3;
+    private static final int SAMPLE = 200;
+    private static final int BFS_SAMPLE = 30;
+    private static final int SUGGESTIONS = 10;
+
+    private static int[][] edges;
+    private static UserRepository userRepository;
+    private static int[][] pairs;
+
+    @BeforeAll
+    static void seed() {
+        Random random = new Random(SEED);
+        edges = new int[USERS + 1][];
+        long total = 0;
+        for (int userId = 1; userId <= USERS; userId++) {
+            int degree = (int) Math.min(MAX_DEGREE, 2 / Math.pow(1 - random.nextDouble(), 1 / (DEGREE_ALPHA - 1)));
+            int[] friendIds = new int[degree];
+            for (int i = 0; i < degree; i++) {
+                int friendId = 1 + (int) (Math.pow(random.nextDouble(), POPULARITY_SKEW) * USERS);
+                friendIds[i] = friendId != userId ? friendId : 1 + userId % USERS;
+            }
+            edges[userId] = friendIds;
+            total += degree;
+        }
+
+        userRepository = mock(UserRepository.class);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, Integer> consumer = invocation.getArgument(0);
+            for (int userId = 1; userId <= USERS; userId++) {
+                for (int friendId : edges[userId]) {
+                    consumer.accept(userId, friendId);
+                }
+            }
+            return null;
+        }).when(userRepository).exportFriends(any());
+
+        pairs = new int[SAMPLE][];
+        for (int i = 0; i < SAMPLE; i++) {
+            pairs[i] = new int[]{1 + random.nextInt(USERS), 1 + random.nextInt(USERS)};
+        }
+        log.info("Синтетический граф: пользователей {}, связей {}", USERS, total);
+    }
+
+    @Test
+    @DisplayName("GET /users/{id}/distance/{otherId}: двунаправленный поиск против обычного BFS")
+    void compareDistanceWithBfs() {
+        FriendGraph graph = new FriendGraph(userRepository, Integer.MAX_VALUE, Integer.MAX_VALUE, 60_000);
+        long start = System.nanoTime();
+        graph.rebuild();
+        log.info("Построение графа: {} мс", (System.nanoTime() - start) / 1_000_000);
+
+        long bfsNanos = 0;
+        long bidirectionalNanos = 0;
+        for (int i = 0; i < BFS_SAMPLE; i++) {
+            start = System.nanoTime();
+            int expected = bfs(graph, pairs[i][0], pairs[i][1]);
+            bfsNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            UserDistance distance = graph.distance(pairs[i][0], pairs[i][1]);
+            bidirectionalNanos += System.nanoTime() - start;
+
+            assertThat(distance.getStatus())
+                    .isEqualTo(expected >= 0 ? UserDistance.Status.FOUND : UserDistance.Status.NOT_FOUND);
+            if (expected >= 0) {
+                assertThat(distance.getDistance()).as("%d -> %d", pairs[i][0], pairs[i][1]).isEqualTo(expected);
+            }
+        }
+        log.info("BFS: {} мкс на запрос, двунаправленный поиск: {} мкс на запрос",
+                bfsNanos / 1_000 / BFS_SAMPLE, bidirectionalNanos / 1_000 / BFS_SAMPLE);
+    }
+
+    @Test
+    @DisplayName("Задержка рекомендаций друзей и расстояния с ограничениями по умолчанию")
+    void measureWithDefaultLimits() {
+        FriendGraph graph = new FriendGraph(userRepository, 6, 1000, 50);
+        graph.rebuild();
+
+        int[] statuses = new int[UserDistance.Status.values().length];
+        long maxNanos = 0;
+        long start = System.nanoTime();
+        for (int[] pair : pairs) {
+            long queryStart = System.nanoTime();
+            statuses[graph.distance(pair[0], pair[1]).getStatus().ordinal()]++;
+            maxNanos = Math.max(maxNanos, System.nanoTime() - queryStart);
+        }
+        log.info("distance: {} мкс на запрос, максимум {} мс, найдено {}, не найдено {}, остановлено {}",
+                (System.nanoTime() - start) / 1_000 / SAMPLE, maxNanos / 1_000_000,
+                statuses[UserDistance.Status.FOUND.ordinal()],
+                statuses[UserDistance.Status.NOT_FOUND.ordinal()],
+                statuses[UserDistance.Status.LIMIT_EXCEEDED.ordinal()]);
+
+        start = System.nanoTime();
+        for (int[] pair : pairs) {
+            graph.suggestFriends(pair[0], SUGGESTIONS);
+        }
+        log.info("suggestions: {} мкс на запрос", (System.nanoTime() - start) / 1_000 / SAMPLE);
+    }
+
+    // Обычный поиск в ширину от userId по друзьям; -1, если otherId недостижим
+    private static int bfs(FriendGraph graph, int userId, int otherId) {
+        if (userId == otherId) return 0;
+
+        BitSet visited = new BitSet(USERS + 1);
+        int[] queue = new int[USERS + 1];
+        int[] depth = new int[USERS + 1];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = userId;
+        visited.set(userId);
+        while (head < tail) {
+            int nodeId = queue[head++];
+            for (int friendId : graph.getFriends(nodeId)) {
+                if (visited.get(friendId)) continue;
+
+                if (friendId == otherId) return depth[nodeId] + 1;
+                visited.set(friendId);
+                depth[friendId] = depth[nodeId] + 1;
+                queue[tail++] = friendId;
+            }
+        }
+        return -1;
+    }
+}
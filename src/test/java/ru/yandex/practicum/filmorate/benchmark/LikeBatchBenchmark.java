@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcCascadeRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFeedRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.service.impl.CascadeDeleter;
+import ru.yandex.practicum.filmorate.service.impl.FeedAppender;
+import ru.yandex.practicum.filmorate.service.impl.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.impl.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.impl.ParallelLookups;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+// Одиночные запросы сравниваются с прежним путем, где событие ленты пишется в том же запросе
+@JdbcTest(properties = "filmorate.feed.mode=SYNC")
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcUserRepository.class, JdbcGenreRepository.class,
+        JdbcMpaRepository.class, JdbcFeedRepository.class, JdbcDirectorRepository.class, JdbcReviewRepository.class,
+        FilmLeaderboard.class, FilmSearchIndex.class, FilmSimilarityIndex.class, LikeMatrix.class, MinHashIndex.class,
+        FriendGraph.class, JdbcCascadeRepository.class, CascadeDeleter.class, LikeWriteBuffer.class, FeedAppender.class,
+        FilmServiceImpl.class, ParallelLookups.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк пакетной загрузки лайков")
+class LikeBatchBenchmark {
+    private static final int FILMS = 500;
+    private static final int USERS = 40;
+    private static final int FIRST_ID = 1001;
+    private static final int LIKES = FILMS * USERS / 2;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final FilmServiceImpl filmService;
+    private final FilmLeaderboard leaderboard;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+        leaderboard.rebuild();
+    }
+
+    @Test
+    @DisplayName("PUT /films/{id}/like/{userId} против POST /films/likes/batch")
+    void compareSingleAndBatch() {
+        long start = System.nanoTime();
+        for (int i = 0; i < LIKES; i++) {
+            filmService.addLike(filmId(i), userId(i));
+        }
+        double singleOps = LIKES / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        List<LikeBatchItem> items = IntStream.range(LIKES, 2 * LIKES)
+                .mapToObj(i -> LikeBatchItem.builder()
+                        .filmId(filmId(i))
+                        .userId(userId(i))
+                        .op(LikeBatchItem.Operation.ADD)
+                        .build())
+                .toList();
+        start = System.nanoTime();
+        List<LikeBatchResult> results = filmService.applyLikes(items);
+        double batchOps = LIKES / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        log.info("Лайков: {}; по одному: {} оп/с; пакетом: {} оп/с; ускорение: {}",
+                LIKES, String.format("%.0f", singleOps), String.format("%.0f", batchOps),
+                String.format("%.1f", batchOps / singleOps));
+
+        assertThat(results)
+                .extracting(LikeBatchResult::getStatus)
+                .containsOnly(LikeBatchResult.Status.APPLIED);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id >= :id",
+                new MapSqlParameterSource("id", FIRST_ID), Integer.class))
+                .isEqualTo(2 * LIKES);
+        assertThat(leaderboard.getLikes(FIRST_ID)).isEqualTo(USERS);
+    }
+
+    private static int filmId(int i) {
+        return FIRST_ID + i % FILMS;
+    }
+
+    private static int userId(int i) {
+        return FIRST_ID + i / FILMS;
+    }
+}
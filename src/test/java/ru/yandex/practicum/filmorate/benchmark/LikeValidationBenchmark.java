@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+// Проверки из PUT /films/{id}/like/{userId}: загрузка сущностей через get против exists
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        JdbcUserRepository.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк проверки существования при постановке лайка")
+class LikeValidationBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 200;
+    private static final int FIRST_ID = 1001;
+    private static final int GENRES_PER_FILM = 3;
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 20000;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcFilmRepository filmRepository;
+    private final JdbcUserRepository userRepository;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+        List<MapSqlParameterSource> genres = new ArrayList<>();
+        for (int id = FIRST_ID; id < FIRST_ID + FILMS; id++) {
+            for (int i = 0; i < GENRES_PER_FILM; i++) {
+                genres.add(new MapSqlParameterSource("film_id", id)
+                        .addValue("genre_id", (id + i) % 6 + 1));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES(:film_id, :genre_id)",
+                genres.toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Test
+    @DisplayName("addLike: get против exists")
+    void compareLikeValidation() {
+        double getOps = measure((filmId, userId) -> {
+            filmRepository.get(filmId).orElseThrow();
+            userRepository.get(userId).orElseThrow();
+            return filmRepository.addLike(filmId, userId) ? 1 : 0;
+        });
+        jdbc.update("DELETE FROM likes WHERE film_id >= :id", new MapSqlParameterSource("id", FIRST_ID));
+        jdbc.update("UPDATE films SET like_count = 0", new MapSqlParameterSource());
+        double existsOps = measure((filmId, userId) -> {
+            assertThat(filmRepository.exists(filmId) && userRepository.exists(userId)).isTrue();
+            return filmRepository.addLike(filmId, userId) ? 1 : 0;
+        });
+
+        log.info("addLike, операций: {}; get: {} оп/с; exists: {} оп/с",
+                ITERATIONS, String.format("%.0f", getOps), String.format("%.0f", existsOps));
+    }
+
+    private static double measure(IntBinaryOperator action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.applyAsInt(FIRST_ID + i % FILMS, FIRST_ID + i / FILMS % USERS);
+        }
+        long start = System.nanoTime();
+        for (int i = WARMUP; i < WARMUP + ITERATIONS; i++) {
+            action.applyAsInt(FIRST_ID + i % FILMS, FIRST_ID + i / FILMS % USERS);
+        }
+        return ITERATIONS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
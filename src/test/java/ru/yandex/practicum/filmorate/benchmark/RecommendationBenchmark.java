@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк рекомендаций фильмов")
+class RecommendationBenchmark {
+    private static final long SEED = 20241015L;
+    private static final int FIRST_ID = 1001;
+    private static final int FILMS = 3000;
+    private static final int USERS = 200;
+    private static final int MAX_LIKES_PER_USER = 2000;
+    private static final int NEIGHBOURS = 10;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    // Прежний путь: лайки пользователя, 10 похожих пользователей, все фильмы, которые им понравились
+    private static final String USER_LIKES_QUERY = "SELECT film_id FROM likes WHERE user_id = :user_id";
+    private static final String SIMILAR_USERS_QUERY = """
+            SELECT l.user_id
+            FROM likes AS l
+            WHERE l.film_id IN (:films_id)
+            GROUP BY l.user_id
+            ORDER BY COUNT(l.film_id) DESC
+            LIMIT 10""";
+    private static final String LIKED_BY_USERS_QUERY =
+            "SELECT DISTINCT film_id FROM likes WHERE user_id IN (:users_ids)";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final LikeMatrix likeMatrix;
+    private final Map<Integer, Set<Integer>> likes = new HashMap<>();
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+
+        // Популярность фильмов неравномерна: фильмы с меньшим id получают больше лайков
+        Random random = new Random(SEED);
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        for (int userId = FIRST_ID; userId < FIRST_ID + USERS; userId++) {
+            Set<Integer> liked = new HashSet<>();
+            int count = 1 + random.nextInt(MAX_LIKES_PER_USER);
+            while (liked.size() < count) {
+                double r = random.nextDouble();
+                liked.add(FIRST_ID + (int) (r * r * FILMS));
+            }
+            likes.put(userId, liked);
+            for (int filmId : liked) {
+                rows.add(new MapSqlParameterSource("film_id", filmId).addValue("user_id", userId));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES(:film_id, :user_id)",
+                rows.toArray(MapSqlParameterSource[]::new));
+        likeMatrix.rebuild();
+    }
+
+    @Test
+    @DisplayName("GET /users/{id}/recommendations: SQL против матрицы в памяти")
+    void compareRecommendations() {
+        int userId = likes.entrySet().stream()
+                .max(Comparator.comparingInt((Map.Entry<Integer, Set<Integer>> e) -> e.getValue().size()))
+                .orElseThrow()
+                .getKey();
+
+        assertThat(likeMatrix.recommend(userId, NEIGHBOURS)).isEqualTo(bruteForce(userId));
+
+        double sqlUs = measure(() -> recommendBySql(userId));
+        double matrixUs = measure(() -> likeMatrix.recommend(userId, NEIGHBOURS));
+        log.info("Лайков у пользователя: {}, всего лайков: {}; SQL: {} мкс, матрица: {} мкс",
+                likes.get(userId).size(), likes.values().stream().mapToInt(Set::size).sum(),
+                String.format("%.1f", sqlUs), String.format("%.1f", matrixUs));
+
+    }
+
+    private List<Integer> recommendBySql(int userId) {
+        List<Integer> liked = jdbc.queryForList(USER_LIKES_QUERY,
+                new MapSqlParameterSource("user_id", userId), Integer.class);
+        List<Integer> similar = jdbc.queryForList(SIMILAR_USERS_QUERY,
+                new MapSqlParameterSource("films_id", liked), Integer.class);
+        Set<Integer> own = new HashSet<>(liked);
+        return jdbc.queryForList(LIKED_BY_USERS_QUERY,
+                        new MapSqlParameterSource("users_ids", similar), Integer.class).stream()
+                .filter(filmId -> !own.contains(filmId))
+                .toList();
+    }
+
+    // Та же модель оценки, посчитанная по множествам без оптимизаций
+    private List<Integer> bruteForce(int userId) {
+        Set<Integer> own = likes.get(userId);
+        Map<Integer, Integer> overlap = new HashMap<>();
+        likes.forEach((otherId, liked) -> {
+            if (otherId == userId) return;
+
+            int common = (int) liked.stream().filter(own::contains).count();
+            if (common > 0) {
+                overlap.put(otherId, common);
+            }
+        });
+        List<Integer> neighbours = overlap.keySet().stream()
+                .sorted(Comparator.comparingInt((Integer id) -> -overlap.get(id)).thenComparing(id -> id))
+                .limit(NEIGHBOURS)
+                .toList();
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (int neighbourId : neighbours) {
+            for (int filmId : likes.get(neighbourId)) {
+                if (!own.contains(filmId)) {
+                    scores.merge(filmId, overlap.get(neighbourId), Integer::sum);
+                }
+            }
+        }
+        return scores.keySet().stream()
+                .sorted(Comparator.comparingInt((Integer id) -> -scores.get(id)).thenComparing(id -> id))
+                .toList();
+    }
+
+    private static double measure(Supplier<List<Integer>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcReviewRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк постраничного чтения отзывов")
+class ReviewPageBenchmark {
+    private static final int FIRST_ID = 1001;
+    private static final int REVIEWS = 50_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int[] DEPTHS = {0, 1000, 10_000, 40_000};
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private static final String OFFSET_QUERY = """
+            SELECT review_id, content, is_positive, film_id, user_id, useful
+            FROM reviews
+            WHERE film_id = :film_id
+            ORDER BY useful DESC, review_id
+            LIMIT :count OFFSET :offset""";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcReviewRepository reviewRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbc.batchUpdate("""
+                        INSERT INTO reviews (review_id, content, is_positive, film_id, user_id, useful)
+                        VALUES(:id, 'Отзыв', true, :film_id, 1, :useful)""",
+                IntStream.range(FIRST_ID, FIRST_ID + REVIEWS)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id)
+                                .addValue("film_id", id % 3 + 1)
+                                .addValue("useful", id * 7919 % 201 - 100))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Test
+    @DisplayName("GET /reviews?filmId: OFFSET против курсора")
+    void compareDeepPages() {
+        int filmId = 1;
+        List<Review> all = reviewRepository.findByFilmId(filmId, REVIEWS);
+        double[] cursorUs = new double[DEPTHS.length];
+        for (int i = 0; i < DEPTHS.length; i++) {
+            int depth = DEPTHS[i];
+            Review last = depth == 0 ? null : all.get(depth - 1);
+            Supplier<List<Review>> cursor = last == null
+                    ? () -> reviewRepository.findByFilmId(filmId, PAGE_SIZE)
+                    : () -> reviewRepository.findPageByFilmId(filmId, last.getUseful(), last.getReviewId(), PAGE_SIZE);
+            Supplier<List<Review>> offset = () -> jdbc.query(OFFSET_QUERY,
+                    new MapSqlParameterSource("film_id", filmId)
+                            .addValue("count", PAGE_SIZE)
+                            .addValue("offset", depth),
+                    (rs, rowNum) -> {
+                        Review review = new Review();
+                        review.setReviewId(rs.getInt("review_id"));
+                        review.setUseful(rs.getInt("useful"));
+                        return review;
+                    });
+
+            assertThat(cursor.get())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(all.subList(depth, depth + PAGE_SIZE));
+
+            double offsetUs = measure(offset);
+            cursorUs[i] = measure(cursor);
+            log.info("Отзывов фильма: {}; глубина {}: OFFSET {} мкс, курсор {} мкс", all.size(), depth,
+                    String.format("%.1f", offsetUs), String.format("%.1f", cursorUs[i]));
+        }
+    }
+
+    private static double measure(Supplier<List<Review>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcReviewRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк оценок отзывов")
+class ReviewVoteBenchmark {
+    private static final int FIRST_ID = 1001;
+    private static final int USERS = 1000;
+    private static final int REVIEWS = 200;
+    private static final int[] VOTES_PER_REVIEW = {10, 100, 500};
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2000;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final JdbcReviewRepository reviewRepository;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        jdbc.batchUpdate("""
+                        INSERT INTO reviews (review_id, content, is_positive, film_id, user_id)
+                        VALUES(:id, 'Отзыв', true, 1, 1)""",
+                IntStream.range(FIRST_ID, FIRST_ID + REVIEWS)
+                        .mapToObj(id -> new MapSqlParameterSource("id", id))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+
+    @Test
+    @DisplayName("PUT /reviews/{id}/like/{userId} при росте review_likes")
+    void compareVoteLatency() {
+        double[] voteUs = new double[VOTES_PER_REVIEW.length];
+        int seeded = 0;
+        for (int i = 0; i < VOTES_PER_REVIEW.length; i++) {
+            seedVotes(seeded, VOTES_PER_REVIEW[i]);
+            seeded = VOTES_PER_REVIEW[i];
+
+            voteUs[i] = measure();
+            log.info("Оценок в review_likes: {}; оценка отзыва: {} мкс",
+                    REVIEWS * seeded, String.format("%.1f", voteUs[i]));
+        }
+
+        assertThat(reviewRepository.reconcileRatings()).isZero();
+    }
+
+    // Пользователи с id от FIRST_ID + from до FIRST_ID + to оценивают все отзывы
+    private void seedVotes(int from, int to) {
+        List<MapSqlParameterSource> votes = new ArrayList<>();
+        for (int review = FIRST_ID; review < FIRST_ID + REVIEWS; review++) {
+            for (int user = FIRST_ID + from; user < FIRST_ID + to; user++) {
+                votes.add(new MapSqlParameterSource("review_id", review)
+                        .addValue("user_id", user)
+                        .addValue("is_like", (review + user) % 3 != 0));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO review_likes (review_id, user_id, is_like) VALUES(:review_id, :user_id, :is_like)",
+                votes.toArray(MapSqlParameterSource[]::new));
+        reviewRepository.reconcileRatings();
+    }
+
+    // Последний пользователь ставит, меняет и снимает оценку
+    private double measure() {
+        int userId = FIRST_ID + USERS - 1;
+        for (int i = 0; i < WARMUP; i++) {
+            vote(FIRST_ID + i % REVIEWS, userId);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            vote(FIRST_ID + i % REVIEWS, userId);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS / 3;
+    }
+
+    private void vote(int reviewId, int userId) {
+        reviewRepository.addLike(reviewId, userId);
+        reviewRepository.addDislike(reviewId, userId);
+        reviewRepository.deleteDislike(reviewId, userId);
+    }
+}
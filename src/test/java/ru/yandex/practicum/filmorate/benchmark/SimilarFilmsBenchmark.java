@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@Slf4j
+@JdbcTest
+@AutoConfigureTestDatabase
+@Tag("benchmark")
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("Бенчмарк похожих фильмов")
+class SimilarFilmsBenchmark {
+    private static final long SEED = 20241017L;
+    private static final int FIRST_ID = 1001;
+    private static final int FILMS = 2000;
+    private static final int USERS = 1000;
+    private static final int LIKES_PER_USER = 100;
+    private static final int TOP_K = 50;
+    private static final int COUNT = 10;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    // Подсчет общих лайков по запросу: самосоединение likes
+    private static final String CO_LIKES_QUERY = """
+            SELECT l2.film_id
+            FROM likes l1
+            JOIN likes l2 ON l1.user_id = l2.user_id AND l2.film_id <> l1.film_id
+            WHERE l1.film_id = :film_id
+            GROUP BY l2.film_id
+            ORDER BY COUNT(*) DESC, l2.film_id
+            LIMIT :count""";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final LikeMatrix likeMatrix;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+
+        Random random = new Random(SEED);
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        for (int userId = FIRST_ID; userId < FIRST_ID + USERS; userId++) {
+            Set<Integer> liked = new HashSet<>();
+            while (liked.size() < LIKES_PER_USER) {
+                double r = random.nextDouble();
+                liked.add(FIRST_ID + (int) (r * r * FILMS));
+            }
+            for (int filmId : liked) {
+                rows.add(new MapSqlParameterSource("film_id", filmId).addValue("user_id", userId));
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES(:film_id, :user_id)",
+                rows.toArray(MapSqlParameterSource[]::new));
+        likeMatrix.rebuild();
+    }
+
+    @Test
+    @DisplayName("GET /films/{id}/similar: самосоединение likes против готовых списков")
+    void compareSimilarFilms() {
+        FilmSimilarityIndex sequential = new FilmSimilarityIndex(likeMatrix, TOP_K, 1);
+        FilmSimilarityIndex parallel = new FilmSimilarityIndex(likeMatrix, TOP_K, 0);
+        double sequentialMs = measureBuild(sequential);
+        double parallelMs = measureBuild(parallel);
+        log.info("Построение списков, фильмов {}: 1 поток {} мс, {} потоков {} мс", FILMS,
+                String.format("%.0f", sequentialMs), Runtime.getRuntime().availableProcessors(),
+                String.format("%.0f", parallelMs));
+
+        int filmId = FIRST_ID;
+        for (int id = FIRST_ID; id < FIRST_ID + FILMS; id += 97) {
+            assertThat(parallel.similar(id, TOP_K)).isEqualTo(sequential.similar(id, TOP_K));
+        }
+
+        double sqlUs = measure(() -> jdbc.queryForList(CO_LIKES_QUERY,
+                new MapSqlParameterSource("film_id", filmId).addValue("count", COUNT), Integer.class));
+        double indexUs = measure(() -> parallel.similar(filmId, COUNT));
+        log.info("Лайкнувших фильм: {}; SQL: {} мкс, готовые списки: {} мкс", likeMatrix.getLikers(filmId).length,
+                String.format("%.1f", sqlUs), String.format("%.2f", indexUs));
+
+        sequential.stop();
+        parallel.stop();
+    }
+
+    private static double measureBuild(FilmSimilarityIndex index) {
+        long start = System.nanoTime();
+        index.start();
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private static double measure(Supplier<List<Integer>> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
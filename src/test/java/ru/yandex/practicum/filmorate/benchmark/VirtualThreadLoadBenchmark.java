@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.MinHashIndex;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedFilms;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+// Каждый режим запускает приложение целиком на случайном порту со своей базой в памяти.
+// Клиенты - виртуальные потоки, каждый отправляет запросы последовательно
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Бенчмарк нагрузки: платформенные и виртуальные потоки")
+class VirtualThreadLoadBenchmark {
+    private static final long SEED = 20241023L;
+    private static final int FIRST_ID = 1001;
+    private static final int USERS = 5000;
+    private static final int FILMS = 2000;
+    private static final int LIKES_PER_USER = 20;
+    private static final int CLIENTS = 2000;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int WARMUP_REQUESTS = 2000;
+
+    private record Result(String mode, double throughput, double p50Ms, double p99Ms, Map<Integer, Integer> statuses,
+                          int failures) {
+    }
+
+    @Test
+    @DisplayName("/films/popular и /users/{id}/recommendations при 2000 одновременных клиентах")
+    void compareExecutionModes() throws Exception {
+        List<Result> results = List.of(
+                run("platform", "--spring.threads.virtual.enabled=false", "--filmorate.web.concurrency.enabled=false"),
+                run("virtual", "--spring.threads.virtual.enabled=true", "--filmorate.web.concurrency.enabled=true"),
+                run("virtual-unlimited", "--spring.threads.virtual.enabled=true",
+                        "--filmorate.web.concurrency.enabled=false"));
+
+        for (Result result : results) {
+            log.info("{}: {} запросов/с, p50 {} мс, p99 {} мс, ответы {}, ошибки соединения {}",
+                    result.mode(), String.format("%.0f", result.throughput()), String.format("%.1f", result.p50Ms()),
+                    String.format("%.1f", result.p99Ms()), result.statuses(), result.failures());
+        }
+
+        Result limited = results.get(1);
+        assertThat(limited.failures()).isZero();
+        assertThat(limited.statuses().keySet()).isSubsetOf(200, 503);
+        assertThat(limited.statuses().getOrDefault(200, 0)).isPositive();
+    }
+
+    private Result run(String mode, String... args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        arguments.add("--server.port=0");
+        arguments.add("--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";LAZY_QUERY_EXECUTION=1");
+        arguments.add("--spring.datasource.hikari.connection-timeout=2000");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run(arguments.toArray(String[]::new));
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+            seed(context);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            Random random = new Random(SEED);
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                http.send(request(baseUrl, random), HttpResponse.BodyHandlers.discarding());
+            }
+
+            Map<Integer, Integer> statuses = new ConcurrentHashMap<>();
+            AtomicInteger failures = new AtomicInteger();
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicInteger completed = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>(CLIENTS);
+            long start = System.nanoTime();
+            for (int client = 0; client < CLIENTS; client++) {
+                Random clientRandom = new Random(SEED + client);
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            int status = http.send(request(baseUrl, clientRandom),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                            statuses.merge(status, 1, Integer::sum);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - requestStart;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Arrays.sort(latencies);
+            return new Result(mode, latencies.length / seconds,
+                    latencies[latencies.length / 2] / 1_000_000.0,
+                    latencies[(int) (latencies.length * 0.99)] / 1_000_000.0,
+                    new TreeMap<>(statuses), failures.get());
+        }
+    }
+
+    private static HttpRequest request(String baseUrl, Random random) {
+        String path = random.nextBoolean()
+                ? "/films/popular?count=10"
+                : "/users/" + (FIRST_ID + random.nextInt(USERS)) + "/recommendations";
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        NamedParameterJdbcOperations jdbc = context.getBean(NamedParameterJdbcOperations.class);
+        Random random = new Random(SEED);
+        seedUsers(jdbc, FIRST_ID, USERS);
+        seedFilms(jdbc, FIRST_ID, FILMS);
+        List<MapSqlParameterSource> likes = new ArrayList<>();
+        for (int userId = FIRST_ID; userId < FIRST_ID + USERS; userId++) {
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                // Квадрат равномерного распределения: популярные фильмы получают больше лайков
+                double r = random.nextDouble();
+                likes.add(new MapSqlParameterSource("film_id", FIRST_ID + (int) (r * r * FILMS))
+                        .addValue("user_id", userId));
+            }
+        }
+        jdbc.batchUpdate("MERGE INTO likes (film_id, user_id) VALUES(:film_id, :user_id)",
+                likes.toArray(MapSqlParameterSource[]::new));
+        jdbc.update("""
+                UPDATE films f
+                SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)""",
+                new MapSqlParameterSource());
+
+        context.getBean(FilmLeaderboard.class).rebuild();
+        context.getBean(LikeMatrix.class).rebuild();
+        context.getBean(MinHashIndex.class).rebuild();
+        context.getBean(FilmSimilarityIndex.class).rebuild();
+    }
+}
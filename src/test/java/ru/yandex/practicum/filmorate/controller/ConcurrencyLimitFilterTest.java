@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ConcurrencyLimitFilter")
+class ConcurrencyLimitFilterTest {
+    @Test
+    @DisplayName("запрос сверх лимита должен получить 503 после ожидания")
+    void shouldRejectRequestOverLimit() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new ObjectMapper(), true, 1, 10, 50);
+        filter.init();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/films/popular"), first, (request, response) -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/popular"), rejected,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("\"error\"");
+
+        release.countDown();
+        holder.join();
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("асинхронный запрос должен держать разрешение до завершения ответа")
+    void shouldHoldPermitUntilAsyncCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new ObjectMapper(), true, 1, 10, 50);
+        filter.init();
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/films/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertThat(filter.availablePermits()).isZero();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/popular"), rejected,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("выключенный фильтр не должен ограничивать запросы")
+    void shouldPassThroughWhenDisabled() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new ObjectMapper(), false, 1, 10, 50);
+        filter.init();
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+
+        // Вложенный запрос выполняется, пока внешний еще занимает единственное разрешение
+        filter.doFilter(new MockHttpServletRequest("GET", "/films/popular"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/films/popular"), inner,
+                        (innerRequest, innerResponse) -> ((MockHttpServletResponse) innerResponse).setStatus(201)));
+
+        assertThat(inner.getStatus()).isEqualTo(201);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcCascadeRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcCascadeRepository.class, JdbcReviewRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JdbcCascadeRepository")
+class JdbcCascadeRepositoryTest {
+    private final JdbcCascadeRepository cascadeRepository;
+    private final JdbcReviewRepository reviewRepository;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    @DisplayName("deleteUsers должен удалить связанные записи и вернуть оценки отзывов")
+    void shouldDeleteUsersWithDependents() {
+        int otherReviewId = createReview(1, 2);
+        int ownReviewId = createReview(2, 1);
+        reviewRepository.addLike(otherReviewId, 1);
+        reviewRepository.addLike(otherReviewId, 3);
+        reviewRepository.addDislike(ownReviewId, 3);
+
+        assertThat(cascadeRepository.deleteUsers(List.of(1))).containsExactlyEntriesOf(Map.of(2, 1));
+
+        assertThat(count("SELECT COUNT(*) FROM users WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM likes WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM friends WHERE user_id = 1 OR friend_id = 1")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM reviews WHERE user_id = 1")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM review_likes WHERE user_id = 1 OR review_id = " + ownReviewId)).isZero();
+        assertThat(count("SELECT like_count FROM films WHERE film_id = 2")).isEqualTo(1);
+        assertThat(reviewRepository.get(otherReviewId).orElseThrow().getUseful()).isEqualTo(1);
+        assertThat(reviewRepository.reconcileRatings()).isZero();
+    }
+
+    @Test
+    @DisplayName("deleteFilms должен удалить фильмы с жанрами, лайками и отзывами")
+    void shouldDeleteFilmsWithDependents() {
+        int reviewId = createReview(2, 3);
+        reviewRepository.addLike(reviewId, 1);
+
+        cascadeRepository.deleteFilms(List.of(2, 3));
+
+        assertThat(count("SELECT COUNT(*) FROM films")).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM film_genres WHERE film_id IN (2, 3)")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM likes")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM reviews")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM review_likes")).isZero();
+    }
+
+    private int createReview(int filmId, int userId) {
+        Review review = new Review();
+        review.setContent("Отзыв");
+        review.setIsPositive(true);
+        review.setFilmId(filmId);
+        review.setUserId(userId);
+        return reviewRepository.create(review).getReviewId();
+    }
+
+    private int count(String sql) {
+        return jdbc.queryForObject(sql, new MapSqlParameterSource(), Integer.class);
+    }
+}
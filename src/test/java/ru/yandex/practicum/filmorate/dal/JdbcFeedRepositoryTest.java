@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFeedRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFeedRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JdbcFeedRepository")
+class JdbcFeedRepositoryTest {
+    private static final int TEST_USER_ID = 1;
+    private final JdbcFeedRepository jdbc;
+
+    @Test
+    @DisplayName("findFeedPage должен возвращать события пользователя после указанного события")
+    void shouldFindFeedPageAfterEvent() {
+        jdbc.createAll(IntStream.range(0, 5)
+                .mapToObj(i -> new Feed(TEST_USER_ID, i, Feed.EventType.LIKE, Feed.Operation.ADD))
+                .toList());
+        jdbc.create(new Feed(2, 1, Feed.EventType.LIKE, Feed.Operation.ADD));
+        List<Feed> all = jdbc.findFeedByUserId(TEST_USER_ID);
+
+        List<Feed> page = jdbc.findFeedPage(TEST_USER_ID, all.get(1).getEventId(), 2);
+
+        assertThat(page)
+                .extracting(Feed::getEntityId)
+                .containsExactly(2, 3);
+        assertThat(jdbc.findFeedPage(TEST_USER_ID, all.getLast().getEventId(), 2))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("create и createAll должны выдавать id событий в порядке записи")
+    void shouldKeepEventOrderAcrossCreateAndCreateAll() {
+        jdbc.create(new Feed(TEST_USER_ID, 0, Feed.EventType.LIKE, Feed.Operation.ADD));
+        jdbc.createAll(List.of(
+                new Feed(TEST_USER_ID, 1, Feed.EventType.LIKE, Feed.Operation.ADD),
+                new Feed(TEST_USER_ID, 2, Feed.EventType.LIKE, Feed.Operation.ADD)));
+        jdbc.create(new Feed(TEST_USER_ID, 3, Feed.EventType.LIKE, Feed.Operation.ADD));
+        jdbc.createAll(List.of(new Feed(TEST_USER_ID, 4, Feed.EventType.LIKE, Feed.Operation.ADD)));
+
+        assertThat(jdbc.findFeedByUserId(TEST_USER_ID))
+                .extracting(Feed::getEntityId)
+                .containsExactly(0, 1, 2, 3, 4);
+    }
+}
@@ -8,6 +8,9 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -15,9 +18,12 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
@@ -25,7 +31,7 @@ import static org.springframework.test.util.AssertionErrors.assertNotNull;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(JdbcFilmRepository.class)
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("JdbcFilmRepository")
 class JdbcFilmRepositoryTest {
@@ -94,6 +100,16 @@ class JdbcFilmRepositoryTest {
                 .isEqualTo(getTestFilm1());
     }
 
+    @Test
+    @DisplayName("exists и existsAll должны проверять наличие фильмов по id")
+    void shouldCheckFilmsExist() {
+        assertThat(jdbc.exists(TEST_FILM1_ID)).isTrue();
+        assertThat(jdbc.exists(999)).isFalse();
+        assertThat(jdbc.existsAll(List.of(1, 2, 3, 2))).isTrue();
+        assertThat(jdbc.existsAll(List.of(1, 999))).isFalse();
+        assertThat(jdbc.existsAll(List.of())).isTrue();
+    }
+
     @Test
     @DisplayName("findAll должен возвращать список из 3 фильмов")
     void shouldFindAllFilms() {
@@ -103,6 +119,31 @@ class JdbcFilmRepositoryTest {
                 .hasSize(3);
     }
 
+    @Test
+    @DisplayName("findPage должен возвращать фильмы после указанного id")
+    void shouldFindPageAfterId() {
+        List<Film> films = jdbc.findPage(TEST_FILM1_ID, 1);
+
+        assertThat(films)
+                .extracting(Film::getId)
+                .containsExactly(TEST_FILM1_ID + 1);
+    }
+
+    @Test
+    @DisplayName("exportAll должен передать каждый фильм один раз вместе с жанрами")
+    void shouldExportAllFilms() {
+        List<Film> films = new ArrayList<>();
+        jdbc.exportAll(films::add);
+
+        assertThat(films)
+                .hasSize(3)
+                .first()
+                .usingRecursiveComparison()
+                .isEqualTo(getTestFilm1());
+        assertThat(films.get(1).getGenres())
+                .hasSize(2);
+    }
+
     @Test
     @DisplayName("create должен создать новый фильм")
     void shouldCreateFilm() {
@@ -124,13 +165,54 @@ class JdbcFilmRepositoryTest {
     @Test
     @DisplayName("addLike должен добавить лайк")
     void shouldAddThenDeleteLike() {
-        assertThatNoException().isThrownBy(() -> jdbc.addLike(getTestFilm1(), getTestUser()));
+        assertThatNoException().isThrownBy(() -> jdbc.addLike(getTestFilm1().getId(), getTestUser().getId()));
     }
 
     @Test
     @DisplayName("deleteLike должен удалить лайк")
     void shouldDeleteLike() {
-        assertThatNoException().isThrownBy(() -> jdbc.deleteLike(getTestFilm1(), getTestUser()));
+        assertThatNoException().isThrownBy(() -> jdbc.deleteLike(getTestFilm1().getId(), getTestUser().getId()));
+    }
+
+    @Test
+    @DisplayName("addLike должен учитываться в порядке топ фильмов только один раз")
+    void shouldCountLikeOnce() {
+        int film3 = 3;
+        int user1 = getTestUser().getId();
+        int user2 = 2;
+
+        assertThat(jdbc.addLike(film3, user1)).isTrue();
+        assertThat(jdbc.addLike(film3, user1)).isFalse();
+        assertThat(jdbc.getTopFilms(10))
+                .extracting(Film::getId)
+                .containsExactly(2, 3, 1);
+
+        jdbc.addLike(film3, user2);
+        assertThat(jdbc.addLike(getTestFilm1().getId(), user1)).isTrue();
+        assertThat(jdbc.getTopFilms(10))
+                .extracting(Film::getId)
+                .containsExactly(2, 3, 1);
+        assertThat(jdbc.deleteLike(film3, user2)).isTrue();
+        assertThat(jdbc.getTopFilms(10))
+                .extracting(Film::getId)
+                .containsExactly(2, 1, 3);
+        assertThat(jdbc.reconcileLikeCounts()).isZero();
+    }
+
+    @Test
+    @DisplayName("addLikes и deleteLikes должны менять счетчик только на фактически измененные лайки")
+    void shouldApplyLikesInBatch() {
+        assertThat(jdbc.findLikes(List.of(1, 2, 3), List.of(1, 2, 3)))
+                .isEqualTo(Map.of(2, Set.of(1, 2)));
+
+        assertThat(jdbc.addLikes(Map.of(2, Set.of(1, 3), 3, Set.of(1))))
+                .isEqualTo(Map.of(2, 1, 3, 1));
+        assertThat(jdbc.deleteLikes(Map.of(2, Set.of(2), 1, Set.of(3))))
+                .isEqualTo(Map.of(2, -1));
+        assertThat(jdbc.getLikeCounts())
+                .containsEntry(2, 2)
+                .containsEntry(3, 1);
+        assertThat(jdbc.reconcileLikeCounts()).isZero();
     }
 
     @Test
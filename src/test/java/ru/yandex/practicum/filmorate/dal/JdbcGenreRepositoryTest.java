@@ -51,4 +51,16 @@ class JdbcGenreRepositoryTest {
         assertThat(genres)
                 .hasSize(6);
     }
+
+    @Test
+    @DisplayName("getByIds должен вернуть существующие жанры по возрастанию id без повторов")
+    void shouldGetGenresByIds() {
+        List<Genre> genres = jdbc.getByIds(List.of(3, 1, 3, 99));
+
+        assertThat(genres)
+                .extracting(Genre::getId)
+                .containsExactly(1, 3);
+        assertThat(genres.getFirst())
+                .isSameAs(jdbc.get(1).orElseThrow());
+    }
 }
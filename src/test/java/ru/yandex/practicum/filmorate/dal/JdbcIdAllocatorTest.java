@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest(properties = "filmorate.ids.block-size=5")
+@AutoConfigureTestDatabase
+@Import(JdbcIdAllocator.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JdbcIdAllocator")
+class JdbcIdAllocatorTest {
+    private final JdbcIdAllocator idAllocator;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    @DisplayName("reserve должен выдавать непересекающиеся диапазоны после MAX(id)")
+    void shouldReserveDisjointRanges() {
+        int maxId = maxUserId();
+        int first = idAllocator.reserve(IdAllocator.Sequence.USERS, 10);
+        int second = idAllocator.reserve(IdAllocator.Sequence.USERS, 3);
+
+        assertThat(first).isGreaterThan(maxId);
+        assertThat(second).isGreaterThanOrEqualTo(first + 10);
+    }
+
+    @Test
+    @DisplayName("nextId должен выдавать возрастающие id через границу блока")
+    void shouldIssueIdsAcrossBlocks() {
+        int previous = idAllocator.nextId(IdAllocator.Sequence.FILMS);
+        for (int i = 0; i < 12; i++) {
+            int next = idAllocator.nextId(IdAllocator.Sequence.FILMS);
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("reserve должен пропустить id, записанные в обход распределителя")
+    void shouldSkipIdsInsertedDirectly() {
+        int reserved = idAllocator.reserve(IdAllocator.Sequence.USERS, 1);
+        jdbc.update("INSERT INTO users (user_id, email, login, user_name) VALUES(:id, 'x@yandex.ru', 'x', 'x')",
+                new MapSqlParameterSource("id", reserved + 100));
+
+        assertThat(idAllocator.reserve(IdAllocator.Sequence.USERS, 1)).isEqualTo(reserved + 101);
+    }
+
+    private int maxUserId() {
+        return jdbc.queryForObject("SELECT MAX(user_id) FROM users", new MapSqlParameterSource(), Integer.class);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.dal;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcReviewRepository;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcReviewRepository.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JdbcReviewRepository")
+class JdbcReviewRepositoryTest {
+    private final JdbcReviewRepository jdbc;
+    private int reviewId;
+
+    @BeforeEach
+    void createReview() {
+        Review review = new Review();
+        review.setContent("Хороший фильм");
+        review.setIsPositive(true);
+        review.setFilmId(1);
+        review.setUserId(1);
+        reviewId = jdbc.create(review).getReviewId();
+    }
+
+    @Test
+    @DisplayName("Оценки должны менять рейтинг на разницу с прежней оценкой пользователя")
+    void shouldApplyVoteDeltas() {
+        jdbc.addLike(reviewId, 1);
+        jdbc.addLike(reviewId, 1);
+        jdbc.addLike(reviewId, 2);
+        assertThat(useful()).isEqualTo(2);
+
+        jdbc.addDislike(reviewId, 1);
+        assertThat(useful()).isEqualTo(0);
+
+        jdbc.deleteLike(reviewId, 1);
+        assertThat(useful()).isEqualTo(0);
+
+        jdbc.deleteDislike(reviewId, 1);
+        jdbc.addDislike(reviewId, 3);
+        assertThat(useful()).isEqualTo(0);
+
+        assertThat(jdbc.reconcileRatings()).isZero();
+    }
+
+    @Test
+    @DisplayName("Страницы по курсору должны совпадать с полной выборкой")
+    void shouldPageByCursor() {
+        for (int i = 0; i < 5; i++) {
+            Review review = new Review();
+            review.setContent("Отзыв " + i);
+            review.setIsPositive(i % 2 == 0);
+            review.setFilmId(i % 2 + 1);
+            review.setUserId(i % 3 + 1);
+            int id = jdbc.create(review).getReviewId();
+            if (i % 2 == 0) {
+                jdbc.addLike(id, 2);
+            }
+        }
+
+        List<Review> all = jdbc.findAll(100);
+        List<Review> paged = new ArrayList<>();
+        List<Review> page = jdbc.findAll(2);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            Review last = page.getLast();
+            page = jdbc.findPage(last.getUseful(), last.getReviewId(), 2);
+        }
+        assertThat(paged).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(all);
+
+        Review first = jdbc.findByFilmId(1, 1).getFirst();
+        assertThat(jdbc.findPageByFilmId(1, first.getUseful(), first.getReviewId(), 100))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(jdbc.findByFilmId(1, 100).subList(1, 4));
+    }
+
+    private int useful() {
+        return jdbc.get(reviewId).orElseThrow().getUseful();
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
 import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -21,7 +22,7 @@ import static org.springframework.test.util.AssertionErrors.assertNotNull;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(JdbcUserRepository.class)
+@Import({JdbcUserRepository.class, JdbcIdAllocator.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("JdbcUserRepository")
 class JdbcUserRepositoryTest {
@@ -91,6 +92,16 @@ class JdbcUserRepositoryTest {
                 .hasSize(3);
     }
 
+    @Test
+    @DisplayName("findPage должен возвращать пользователей после указанного id")
+    void shouldFindPageAfterId() {
+        List<User> users = jdbc.findPage(TEST_USER1_ID, 10);
+
+        assertThat(users)
+                .extracting(User::getId)
+                .containsExactly(TEST_USER2_ID, TEST_USER3_ID);
+    }
+
     @Test
     @DisplayName("create должен создать нового пользователя")
     void shouldCreateUser() {
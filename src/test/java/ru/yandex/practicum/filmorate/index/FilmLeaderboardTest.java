@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.SeedData.seedUsers;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        FilmLeaderboard.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("FilmLeaderboard")
+class FilmLeaderboardTest {
+    private static final long SEED = 20240917L;
+    private static final int FILMS = 40;
+    private static final int FIRST_USER_ID = 101;
+    private static final int USERS = 25;
+    private static final int OPERATIONS = 1500;
+    private static final Integer[] YEARS = {null, 1999, 2005, 2010, 2019};
+
+    private final JdbcFilmRepository filmRepository;
+    private final FilmLeaderboard leaderboard;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @BeforeEach
+    void seed() {
+        seedUsers(jdbc, FIRST_USER_ID, USERS);
+    }
+
+    @Test
+    @DisplayName("top должен совпадать с SQL-рейтингом после случайных изменений")
+    void shouldMatchSqlRanking() {
+        Random random = new Random(SEED);
+        leaderboard.rebuild();
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            Film film = filmRepository.create(randomFilm(random, "Фильм " + i));
+            leaderboard.onFilmSaved(film);
+            films.add(film);
+        }
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            Film film = films.get(random.nextInt(films.size()));
+            int userId = FIRST_USER_ID + random.nextInt(USERS);
+            int operation = random.nextInt(100);
+            if (operation < 60) {
+                if (filmRepository.addLike(film.getId(), userId)) {
+                    leaderboard.onLikeChanged(film.getId(), 1);
+                }
+            } else if (operation < 95) {
+                if (filmRepository.deleteLike(film.getId(), userId)) {
+                    leaderboard.onLikeChanged(film.getId(), -1);
+                }
+            } else {
+                Film changed = randomFilm(random, film.getName());
+                changed.setId(film.getId());
+                leaderboard.onFilmSaved(filmRepository.update(changed));
+            }
+        }
+
+        for (int count : new int[]{1, 3, 10, 100}) {
+            assertThat(leaderboard.top(count, null, null))
+                    .as("count = %d", count)
+                    .containsExactlyElementsOf(ids(filmRepository.getTopFilms(count)));
+            for (Integer year : Arrays.asList(YEARS)) {
+                for (Integer genreId : Arrays.asList(null, 1, 2, 3, 4, 5, 6)) {
+                    if (year == null && genreId == null) continue;
+
+                    assertThat(leaderboard.top(count, genreId, year))
+                            .as("count = %d, genreId = %s, year = %s", count, genreId, year)
+                            .containsExactlyElementsOf(ids(filmRepository.getTopFilms(count, genreId, year)));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("rebuild должен восстановить рейтинг по таблице likes")
+    void shouldRebuildFromLikes() {
+        leaderboard.rebuild();
+
+        assertThat(leaderboard.top(10, null, null))
+                .containsExactlyElementsOf(ids(filmRepository.getTopFilms(10)));
+        assertThat(leaderboard.getLikes(2))
+                .isEqualTo(2);
+    }
+
+    private static Film randomFilm(Random random, String name) {
+        LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+        int genreCount = random.nextInt(3);
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(Genre.builder().id(1 + random.nextInt(6)).build());
+        }
+        Integer year = YEARS[1 + random.nextInt(YEARS.length - 1)];
+        return Film.builder()
+                .name(name)
+                .releaseDate(LocalDate.of(year, 1 + random.nextInt(12), 1))
+                .duration(100)
+                .mpa(Mpa.builder().id(1).build())
+                .genres(genres)
+                .directors(new LinkedHashSet<>())
+                .build();
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream()
+                .map(Film::getId)
+                .toList();
+    }
+}
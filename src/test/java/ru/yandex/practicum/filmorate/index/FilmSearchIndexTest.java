@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        JdbcDirectorRepository.class, FilmLeaderboard.class, FilmSearchIndex.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("FilmSearchIndex")
+class FilmSearchIndexTest {
+    private final JdbcFilmRepository filmRepository;
+    private final JdbcDirectorRepository directorRepository;
+    private final FilmLeaderboard leaderboard;
+    private final FilmSearchIndex searchIndex;
+
+    @Test
+    @DisplayName("search должен находить те же фильмы, что и SQL-поиск")
+    void shouldMatchSqlSearch() {
+        Director nolan = directorRepository.create(Director.builder().name("Кристофер Нолан").build());
+        Director cameron = directorRepository.create(Director.builder().name("Джеймс Кэмерон").build());
+        filmRepository.create(film("Начало", nolan));
+        filmRepository.create(film("Темный рыцарь", nolan));
+        filmRepository.create(film("Терминатор", cameron));
+        filmRepository.create(film("Титаник", cameron, nolan));
+        leaderboard.rebuild();
+        searchIndex.rebuild();
+
+        for (String query : List.of("ран", "РЫЦ", "нол", "кэмерон", "фильм", "т", "", "нет такого")) {
+            for (String by : List.of("title", "director", "title,director", "director,title")) {
+                assertThat(searchIndex.search(query, by))
+                        .as("query = %s, by = %s", query, by)
+                        .containsExactlyElementsOf(ids(filmRepository.searchFilms(query, by)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("search должен учитывать изменения режиссеров")
+    void shouldFollowDirectorChanges() {
+        Director director = directorRepository.create(Director.builder().name("Иванов").build());
+        Film film = filmRepository.create(film("Фильм режиссера", director));
+        leaderboard.rebuild();
+        searchIndex.rebuild();
+
+        director.setName("Петров");
+        searchIndex.onDirectorSaved(director);
+        assertThat(searchIndex.search("иванов", "director")).isEmpty();
+        assertThat(searchIndex.search("петров", "director")).containsExactly(film.getId());
+
+        searchIndex.onDirectorDeleted(director.getId());
+        assertThat(searchIndex.search("петров", "director")).isEmpty();
+        assertThat(searchIndex.search("режиссера", "title")).containsExactly(film.getId());
+    }
+
+    @Test
+    @DisplayName("search должен отклонять неизвестное поле поиска")
+    void shouldRejectUnknownField() {
+        assertThatThrownBy(() -> searchIndex.search("фильм", "genre"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Film film(String name, Director... directors) {
+        return Film.builder()
+                .name(name)
+                .releaseDate(LocalDate.of(2010, Month.JULY, 8))
+                .duration(120)
+                .mpa(Mpa.builder().id(1).build())
+                .directors(new LinkedHashSet<>(List.of(directors)))
+                .build();
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream()
+                .map(Film::getId)
+                .toList();
+    }
+}
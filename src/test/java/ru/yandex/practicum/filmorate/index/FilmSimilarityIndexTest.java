@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class, FilmSimilarityIndex.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("FilmSimilarityIndex")
+class FilmSimilarityIndexTest {
+    private final LikeMatrix likeMatrix;
+    private final FilmSimilarityIndex similarityIndex;
+
+    @Test
+    @DisplayName("similar должен ранжировать фильмы по коэффициенту Жаккара и учитывать изменения лайков")
+    void shouldRankByJaccard() {
+        like(201, 101, 102, 103);
+        like(202, 101, 102, 103);
+        like(203, 101);
+        like(204, 104);
+        similarityIndex.rebuild();
+
+        assertThat(similarityIndex.similar(201, 10)).containsExactly(202, 203);
+        assertThat(similarityIndex.similar(201, 1)).containsExactly(202);
+        assertThat(similarityIndex.similar(204, 10)).isEmpty();
+
+        like(203, 102, 103);
+        unlike(202, 103);
+        similarityIndex.refresh();
+        assertThat(similarityIndex.similar(201, 10)).containsExactly(203, 202);
+
+        int[] likers = likeMatrix.getLikers(203);
+        likeMatrix.onFilmDeleted(203);
+        similarityIndex.onFilmDeleted(203, likers);
+        similarityIndex.refresh();
+        assertThat(similarityIndex.similar(201, 10)).containsExactly(202);
+        assertThat(similarityIndex.similar(203, 10)).isEmpty();
+    }
+
+    private void like(int filmId, int... userIds) {
+        for (int userId : userIds) {
+            likeMatrix.onLikeChanged(filmId, userId, true);
+            similarityIndex.onLikeChanged(filmId, userId);
+        }
+    }
+
+    private void unlike(int filmId, int userId) {
+        likeMatrix.onLikeChanged(filmId, userId, false);
+        similarityIndex.onLikeChanged(filmId, userId);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.model.UserDistance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcUserRepository.class, JdbcIdAllocator.class, FriendGraph.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("FriendGraph")
+class FriendGraphTest {
+    private final JdbcUserRepository userRepository;
+    private final FriendGraph friendGraph;
+
+    @BeforeEach
+    void rebuild() {
+        friendGraph.rebuild();
+    }
+
+    @Test
+    @DisplayName("rebuild должен загрузить дружбу из таблицы friends")
+    void shouldRebuildFromFriends() {
+        assertThat(friendGraph.getFriends(1)).containsExactly(2, 3);
+        assertThat(friendGraph.getFollowers(3)).containsExactly(1, 2);
+        assertThat(friendGraph.getMutualFriends(1, 2)).containsExactly(3);
+        assertThat(friendGraph.getFriends(3)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Изменения дружбы должны обновлять оба направления связей")
+    void shouldFollowChanges() {
+        friendGraph.onFriendAdded(3, 1);
+        friendGraph.onFriendDeleted(1, 2);
+        assertThat(friendGraph.getFriends(1)).containsExactly(3);
+        assertThat(friendGraph.getFollowers(1)).containsExactly(2, 3);
+
+        friendGraph.onUserDeleted(3);
+        assertThat(friendGraph.getFriends(1)).isEmpty();
+        assertThat(friendGraph.getFriends(2)).containsExactly(1);
+        assertThat(friendGraph.getFollowers(1)).containsExactly(2);
+        assertThat(friendGraph.getMutualFriends(1, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Рекомендации друзей должны ранжироваться по числу общих друзей")
+    void shouldSuggestFriendsOfFriends() {
+        friendGraph.onFriendAdded(2, 4);
+        friendGraph.onFriendAdded(3, 4);
+        friendGraph.onFriendAdded(3, 5);
+
+        assertThat(friendGraph.suggestFriends(1, 10)).containsExactly(4, 5);
+        assertThat(friendGraph.suggestFriends(1, 1)).containsExactly(4);
+        assertThat(friendGraph.suggestFriends(2, 10)).containsExactly(5);
+        assertThat(friendGraph.suggestFriends(4, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("distance должен находить кратчайший путь по направлению дружбы")
+    void shouldFindDistance() {
+        friendGraph.onFriendAdded(3, 4);
+        friendGraph.onFriendAdded(4, 5);
+
+        assertThat(friendGraph.distance(1, 1).getDistance()).isEqualTo(0);
+        assertThat(friendGraph.distance(1, 2).getDistance()).isEqualTo(1);
+        assertThat(friendGraph.distance(2, 5).getDistance()).isEqualTo(3);
+        assertThat(friendGraph.distance(1, 5).getStatus()).isEqualTo(UserDistance.Status.FOUND);
+        assertThat(friendGraph.distance(5, 1).getStatus()).isEqualTo(UserDistance.Status.NOT_FOUND);
+        assertThat(friendGraph.distance(5, 1).getDistance()).isNull();
+    }
+
+    @Test
+    @DisplayName("distance должен сообщать о превышении ограничения глубины")
+    void shouldStopAtMaxDepth() {
+        FriendGraph shallow = new FriendGraph(userRepository, 2, 1000, 50);
+        shallow.rebuild();
+        shallow.onFriendAdded(3, 4);
+        shallow.onFriendAdded(4, 5);
+
+        assertThat(shallow.distance(1, 4).getDistance()).isEqualTo(2);
+        assertThat(shallow.distance(1, 5).getStatus()).isEqualTo(UserDistance.Status.LIMIT_EXCEEDED);
+    }
+}
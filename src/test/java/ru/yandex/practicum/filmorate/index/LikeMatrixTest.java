@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("LikeMatrix")
+class LikeMatrixTest {
+    private final LikeMatrix likeMatrix;
+
+    @Test
+    @DisplayName("rebuild должен загрузить лайки из таблицы likes")
+    void shouldRebuildFromLikes() {
+        likeMatrix.rebuild();
+
+        assertThat(likeMatrix.getLikers(2)).containsExactly(1, 2);
+        assertThat(likeMatrix.getLikedFilms(1)).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("recommend должен ранжировать фильмы по числу общих лайков с соседями")
+    void shouldRankRecommendations() {
+        like(101, 201, 202, 203);
+        like(102, 201, 202, 204, 205);
+        like(103, 201, 204, 206);
+        like(104, 207);
+
+        assertThat(likeMatrix.neighbours(101, 10)).containsExactly(102, 103);
+        assertThat(likeMatrix.recommend(101, 10)).containsExactly(204, 205, 206);
+        assertThat(likeMatrix.recommend(101, 1)).containsExactly(204, 205);
+
+        likeMatrix.onLikeChanged(205, 102, false);
+        assertThat(likeMatrix.recommend(101, 10)).containsExactly(204, 206);
+
+        likeMatrix.onUserDeleted(102);
+        likeMatrix.onFilmDeleted(206);
+        assertThat(likeMatrix.getLikers(201)).containsExactly(101, 103);
+        assertThat(likeMatrix.recommend(101, 10)).containsExactly(204);
+        assertThat(likeMatrix.recommend(104, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getCommonFilms должен возвращать пересечение лайков двух пользователей")
+    void shouldIntersectLikes() {
+        like(101, 201, 202, 203, 205);
+        like(102, 202, 203, 204, 205, 206, 207);
+
+        assertThat(likeMatrix.getCommonFilms(101, 102)).containsExactly(202, 203, 205);
+        assertThat(likeMatrix.getCommonFilms(102, 101)).containsExactly(202, 203, 205);
+        assertThat(likeMatrix.getCommonFilms(101, 103)).isEmpty();
+    }
+
+    private void like(int userId, int... filmIds) {
+        for (int filmId : filmIds) {
+            likeMatrix.onLikeChanged(filmId, userId, true);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcGenreRepository.class, JdbcMpaRepository.class,
+        LikeMatrix.class, MinHashIndex.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("MinHashIndex")
+class MinHashIndexTest {
+    private static final long SEED = 20241016L;
+
+    private final LikeMatrix likeMatrix;
+    private final MinHashIndex minHashIndex;
+
+    @Test
+    @DisplayName("neighbours должен находить пользователей с теми же лайками")
+    void shouldFindUsersWithSameLikes() {
+        for (int filmId = 201; filmId <= 210; filmId++) {
+            like(filmId, 101, true);
+            like(filmId, 102, true);
+        }
+        for (int filmId = 301; filmId <= 305; filmId++) {
+            like(filmId, 103, true);
+        }
+
+        assertThat(minHashIndex.neighbours(101, 10)).containsExactly(102);
+        assertThat(minHashIndex.neighbours(103, 10)).isEmpty();
+
+        minHashIndex.onUserDeleted(102);
+        likeMatrix.onUserDeleted(102);
+        assertThat(minHashIndex.neighbours(101, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Инкрементальные изменения должны давать тех же соседей, что и перестроение индекса")
+    void shouldMatchRebuild() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < 3000; i++) {
+            like(201 + random.nextInt(30), 101 + random.nextInt(40), random.nextInt(100) < 70);
+        }
+        Map<Integer, int[]> incremental = new HashMap<>();
+        for (int userId = 101; userId < 141; userId++) {
+            incremental.put(userId, minHashIndex.neighbours(userId, 5));
+        }
+
+        minHashIndex.rebuild();
+
+        for (int userId = 101; userId < 141; userId++) {
+            assertThat(minHashIndex.neighbours(userId, 5))
+                    .as("userId = %d", userId)
+                    .containsExactly(incremental.get(userId));
+        }
+    }
+
+    private void like(int filmId, int userId, boolean liked) {
+        likeMatrix.onLikeChanged(filmId, userId, liked);
+        minHashIndex.onLikeChanged(filmId, userId, liked);
+    }
+}
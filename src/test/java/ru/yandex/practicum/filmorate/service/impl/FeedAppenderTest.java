@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFeedRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Фоновый сброс отключен большим интервалом, чтобы запись шла только из потока теста
+@JdbcTest(properties = {
+        "filmorate.feed.mode=ASYNC_FLUSH_ON_READ",
+        "filmorate.feed.drain-interval-ms=600000",
+        "filmorate.feed.batch-size=1000",
+        "filmorate.feed.queue-capacity=5"})
+@AutoConfigureTestDatabase
+@Import({JdbcFeedRepository.class, FeedAppender.class, JdbcIdAllocator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("FeedAppender")
+class FeedAppenderTest {
+    private final FeedAppender feedAppender;
+    private final JdbcFeedRepository feedRepository;
+
+    @Test
+    @DisplayName("beforeRead должен записать события пользователя в порядке добавления")
+    void shouldFlushUserEventsBeforeRead() {
+        feedAppender.append(new Feed(1, 10, Feed.EventType.LIKE, Feed.Operation.ADD));
+        feedAppender.append(new Feed(2, 20, Feed.EventType.LIKE, Feed.Operation.ADD));
+        feedAppender.append(new Feed(1, 10, Feed.EventType.LIKE, Feed.Operation.REMOVE));
+
+        assertThat(feedRepository.findFeedByUserId(1)).isEmpty();
+
+        feedAppender.beforeRead(1);
+        assertThat(feedAppender.pendingCount()).isZero();
+        assertThat(feedRepository.findFeedByUserId(1))
+                .extracting(Feed::getOperation)
+                .containsExactly(Feed.Operation.ADD, Feed.Operation.REMOVE);
+    }
+
+    @Test
+    @DisplayName("append не должен превышать емкость очереди")
+    void shouldStayWithinCapacity() {
+        IntStream.range(0, 12).forEach(i ->
+                feedAppender.append(new Feed(3, i, Feed.EventType.FRIEND, Feed.Operation.ADD)));
+
+        assertThat(feedAppender.pendingCount()).isLessThanOrEqualTo(5);
+        feedAppender.flush();
+        List<Feed> feed = feedRepository.findFeedByUserId(3);
+        assertThat(feed)
+                .extracting(Feed::getEntityId)
+                .containsExactlyElementsOf(IntStream.range(0, 12).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("append после остановки должен записывать событие сразу")
+    void shouldWriteSynchronouslyAfterStop() throws InterruptedException {
+        FeedAppender stopped = new FeedAppender(feedRepository, FeedAppender.Mode.ASYNC, 5, 1, 600000, false);
+        stopped.start();
+        stopped.stop();
+
+        stopped.append(new Feed(2, 30, Feed.EventType.REVIEW, Feed.Operation.ADD));
+        assertThat(stopped.pendingCount()).isZero();
+        assertThat(feedRepository.findFeedByUserId(2))
+                .extracting(Feed::getEntityId)
+                .contains(30);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcDirectorRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.index.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Порция из двух строк, чтобы загрузка шла несколькими пакетами
+@JdbcTest(properties = "filmorate.import.chunk-size=2")
+@AutoConfigureTestDatabase
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({ImportServiceImpl.class, JdbcUserRepository.class, JdbcFilmRepository.class, JdbcGenreRepository.class,
+        JdbcMpaRepository.class, JdbcDirectorRepository.class, JdbcIdAllocator.class, FilmLeaderboard.class,
+        FilmSearchIndex.class, UserValidator.class, FilmValidator.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("ImportService")
+class ImportServiceImplTest {
+    private final ImportServiceImpl importService;
+    private final JdbcUserRepository userRepository;
+    private final JdbcFilmRepository filmRepository;
+    private final FilmLeaderboard leaderboard;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    @DisplayName("importUsers должен записать корректные строки NDJSON и отклонить ошибочные")
+    void shouldImportUsersFromNdjson() {
+        ImportResult result = importService.importUsers(stream("""
+                {"email": "first@yandex.ru", "login": "first", "name": "Первый", "birthday": "1990-01-01"}
+                {"email": "second@yandex.ru", "login": "second"}
+
+                {"email": "not-an-email", "login": "broken"}
+                {"email": "third@yandex.ru", "login": "with space"}
+                {"email": "fourth@yandex.ru", "login": "fourth"
+                {"email": "fifth@yandex.ru", "login": "fifth", "birthday": "1995-05-05"}
+                """), ImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors())
+                .hasSize(3)
+                .anySatisfy(error -> assertThat(error).startsWith("строка 4: email"))
+                .anySatisfy(error -> assertThat(error).startsWith("строка 5: Логин"))
+                .anySatisfy(error -> assertThat(error).startsWith("строка 6: "));
+        assertThat(userRepository.findAll())
+                .extracting(User::getLogin, User::getName)
+                .contains(
+                        tuple("first", "Первый"),
+                        tuple("second", "second"),
+                        tuple("fifth", "fifth"));
+    }
+
+    @Test
+    @DisplayName("importFilms должен разобрать CSV с кавычками и записать жанры и режиссеров")
+    void shouldImportFilmsFromCsv() {
+        int directorId = 1;
+        jdbc.update("INSERT INTO directors (director_id, name) VALUES(:id, :name)",
+                new MapSqlParameterSource("id", directorId).addValue("name", "Режиссер"));
+        leaderboard.rebuild();
+
+        ImportResult result = importService.importFilms(stream("""
+                duration,name,releaseDate,mpa,genres,directors,description
+                120,Первый,2001-02-03,1,1|2,%d,"Описание, с запятой
+                и переводом строки, и ""кавычками\"\"\"
+                90,Второй,2010-10-10,2,,,
+                90,Без рейтинга,2010-10-10,99,,,
+                90,Старый,1800-01-01,1,,,
+                abc,Без длительности,2010-10-10,1,,,
+                100,Третий,2020-01-01,3,6,,
+                """.formatted(directorId)), ImportService.Format.CSV);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors())
+                .containsExactly(
+                        "строка 5: Рейтинг с id = 99 не найден",
+                        "строка 6: Дата релиза — не раньше 28 декабря 1895 года",
+                        "строка 7: For input string: \"abc\"");
+
+        Film first = filmRepository.findAll().stream()
+                .filter(film -> film.getName().equals("Первый"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(first.getReleaseDate()).isEqualTo(LocalDate.of(2001, 2, 3));
+        assertThat(first.getDescription()).isEqualTo("Описание, с запятой\nи переводом строки, и \"кавычками\"");
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(first.getDirectors()).extracting(Director::getId).containsExactly(directorId);
+        assertThat(leaderboard.top(10, 6, 2020)).containsExactly(filmRepository.findAll().stream()
+                .filter(film -> film.getName().equals("Третий"))
+                .findFirst()
+                .orElseThrow()
+                .getId());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcIdAllocator;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.dal.impl.JdbcUserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest(properties = "filmorate.likes.write-behind.enabled=true")
+@AutoConfigureTestDatabase
+@Import({JdbcFilmRepository.class, JdbcIdAllocator.class, JdbcUserRepository.class, JdbcGenreRepository.class,
+        JdbcMpaRepository.class, LikeWriteBuffer.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("LikeWriteBuffer")
+class LikeWriteBufferTest {
+    private final LikeWriteBuffer likeBuffer;
+    private final JdbcFilmRepository filmRepository;
+    private final AtomicInteger changes = new AtomicInteger();
+
+    @Test
+    @DisplayName("addLike и deleteLike должны учитывать несохраненные изменения")
+    void shouldOverlayPendingLikes() {
+        assertThat(likeBuffer.addLike(1, 1, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.addLike(1, 1, changes::incrementAndGet)).isFalse();
+        assertThat(likeBuffer.deleteLike(2, 1, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.deleteLike(2, 1, changes::incrementAndGet)).isFalse();
+
+        assertThat(changes).hasValue(2);
+        assertThat(filmRepository.hasLike(1, 1)).isFalse();
+        assertThat(filmRepository.hasLike(2, 1)).isTrue();
+        assertThat(likeBuffer.pendingCount()).isEqualTo(2);
+
+        likeBuffer.flush();
+        assertThat(likeBuffer.pendingCount()).isZero();
+        assertThat(filmRepository.hasLike(1, 1)).isTrue();
+        assertThat(filmRepository.hasLike(2, 1)).isFalse();
+        assertThat(filmRepository.getLikeCounts())
+                .containsEntry(1, 1)
+                .containsEntry(2, 1);
+        assertThat(filmRepository.reconcileLikeCounts()).isZero();
+    }
+
+    @Test
+    @DisplayName("Противоположные операции не должны доходить до базы")
+    void shouldCollapseToggles() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(likeBuffer.addLike(3, 2, changes::incrementAndGet)).isTrue();
+            assertThat(likeBuffer.deleteLike(3, 2, changes::incrementAndGet)).isTrue();
+        }
+        assertThat(likeBuffer.deleteLike(2, 2, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.addLike(2, 2, changes::incrementAndGet)).isTrue();
+
+        assertThat(likeBuffer.pendingCount()).isZero();
+        likeBuffer.flush();
+        assertThat(filmRepository.hasLike(3, 2)).isFalse();
+        assertThat(filmRepository.hasLike(2, 2)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Лайк несуществующего пользователя не должен мешать записи остальных")
+    void shouldDropLikesOfMissingUsers() {
+        assertThat(likeBuffer.addLike(1, 1, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.addLike(1, 1000, changes::incrementAndGet)).isTrue();
+
+        likeBuffer.flush();
+        assertThat(likeBuffer.pendingCount()).isZero();
+        assertThat(filmRepository.hasLike(1, 1)).isTrue();
+        assertThat(filmRepository.hasLike(1, 1000)).isFalse();
+    }
+
+    @Test
+    @DisplayName("discard должен убирать из буфера лайки удаленных пользователей")
+    void shouldDiscardPendingLikes() {
+        assertThat(likeBuffer.addLike(1, 1, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.deleteLike(2, 1, changes::incrementAndGet)).isTrue();
+        assertThat(likeBuffer.addLike(1, 2, changes::incrementAndGet)).isTrue();
+
+        assertThat(likeBuffer.discard(List.of(), List.of(1)))
+                .containsExactlyInAnyOrderEntriesOf(Map.of(1, -1, 2, 1));
+        assertThat(likeBuffer.pendingCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ParallelLookups")
+class ParallelLookupsTest {
+    private final ParallelLookups lookups = new ParallelLookups(true);
+
+    @AfterEach
+    void stop() {
+        lookups.stop();
+    }
+
+    @Test
+    @DisplayName("чтения должны выполняться одновременно")
+    void shouldRunLookupsInParallel() {
+        // Барьер пропускает чтения, только когда до него дошли все три: при последовательном выполнении
+        // первое чтение не дождется остальных и завершится ошибкой по таймауту
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            Supplier<Integer> first = scope.fork(() -> awaitAndGet(barrier, 1));
+            Supplier<Integer> second = scope.fork(() -> awaitAndGet(barrier, 2));
+            Supplier<Integer> third = scope.fork(() -> awaitAndGet(barrier, 3));
+            scope.join();
+
+            assertThat(first.get() + second.get() + third.get()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    @DisplayName("join должен выбросить ошибку первого по порядку чтения, как при последовательном выполнении")
+    void shouldThrowFirstFailureInForkOrder() {
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            scope.check(() -> {
+                sleepAndGet(100, 0);
+                throw new NotFoundException("Пользователь с id = 1 не найден");
+            });
+            scope.check(() -> {
+                throw new NotFoundException("Пользователь с id = 2 не найден");
+            });
+
+            assertThatThrownBy(scope::join)
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Пользователь с id = 1 не найден");
+        }
+    }
+
+    @Test
+    @DisplayName("ошибка чтения должна отменить чтения, запущенные после него, не прерывая их потоки")
+    void shouldCancelLaterLookupsOnFailure() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try (ParallelLookups.Scope scope = lookups.open()) {
+            Supplier<Integer> found = scope.fork(() -> 1);
+            scope.check(() -> {
+                try {
+                    started.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new NotFoundException("Фильм с id = 1 не найден");
+            });
+            scope.check(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                finished.countDown();
+            });
+
+            // join не ждет отмененное чтение, которое еще выполняется
+            assertThatThrownBy(scope::join).isInstanceOf(NotFoundException.class);
+            assertThat(found.get()).isEqualTo(1);
+        }
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted).isFalse();
+    }
+
+    @Test
+    @DisplayName("в последовательном режиме ошибка должна выбрасываться сразу из fork")
+    void shouldRunSequentiallyWhenDisabled() {
+        ParallelLookups sequential = new ParallelLookups(false);
+        try (ParallelLookups.Scope scope = sequential.open()) {
+            Supplier<Integer> first = scope.fork(() -> 1);
+
+            assertThat(first.get()).isEqualTo(1);
+            assertThatThrownBy(() -> scope.check(() -> {
+                throw new NotFoundException("Пользователь с id = 2 не найден");
+            })).isInstanceOf(NotFoundException.class);
+        } finally {
+            sequential.stop();
+        }
+    }
+
+    private static int awaitAndGet(CyclicBarrier barrier, int value) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException("Чтения выполнялись не одновременно", e);
+        }
+        return value;
+    }
+
+    private static int sleepAndGet(long millis, int value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
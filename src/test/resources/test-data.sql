@@ -1,8 +1,8 @@
-INSERT INTO films (name, description, release_date, duration, mpa_id)
+INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
 VALUES
-    ('Фильм 1', 'Интересный фильм', '2019-05-14', 15, 1),
-    ('Фильм 2', 'Занимательный фильм', '2020-02-07', 2, 2),
-    ('Фильм 3', 'Приключенческий фильм', '2021-08-25', 25, 3);
+    (1, 'Фильм 1', 'Интересный фильм', '2019-05-14', 15, 1),
+    (2, 'Фильм 2', 'Занимательный фильм', '2020-02-07', 2, 2),
+    (3, 'Фильм 3', 'Приключенческий фильм', '2021-08-25', 25, 3);
 
 MERGE INTO film_genres (film_id, genre_id)
 VALUES
@@ -11,17 +11,20 @@ VALUES
     (2, 3),
     (3, 6);
 
-INSERT INTO users (email, login, user_name, birthday)
+INSERT INTO users (user_id, email, login, user_name, birthday)
 VALUES
-    ('mail1@yandex.ru', 'user1', 'Иванов', '1972-08-03'),
-    ('mail2@yandex.ru', 'user2', 'Петров', '1975-10-09'),
-    ('mail3@yandex.ru', 'user3', 'Сидоров', '1977-02-15');
+    (1, 'mail1@yandex.ru', 'user1', 'Иванов', '1972-08-03'),
+    (2, 'mail2@yandex.ru', 'user2', 'Петров', '1975-10-09'),
+    (3, 'mail3@yandex.ru', 'user3', 'Сидоров', '1977-02-15');
 
 MERGE INTO likes (film_id, user_id)
 VALUES
     (2, 1),
     (2, 2);
 
+UPDATE films f
+SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id);
+
 MERGE INTO friends (user_id, friend_id)
 VALUES
     (1, 2),